@@ -0,0 +1,26 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DS18B20Benchmark {
+
+    private final List<String> rawDataAsLines = Arrays.asList(
+        "72 01 4b 46 7f ff 0e 10 57 : crc=57 YES",
+        "72 01 4b 46 7f ff 0e 10 57 t=23125");
+
+    @Benchmark
+    public float parseDS18B20Value() {
+        return GpioUtil.parseDS18B20Value(rawDataAsLines);
+    }
+}
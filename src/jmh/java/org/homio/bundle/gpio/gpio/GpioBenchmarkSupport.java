@@ -0,0 +1,85 @@
+package org.homio.bundle.gpio.gpio;
+
+import com.pi4j.io.gpio.digital.PullResistance;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+import org.homio.bundle.api.EntityContext;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.GpioEntrypoint;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+
+/**
+ * Builds GPIOService on top of Pi4J mock platform without running homio core
+ */
+public final class GpioBenchmarkSupport {
+
+    public static final int INPUT_PIN = RaspberryGpioPin.PIN11.getGpioPin().getAddress();
+    public static final int OUTPUT_PIN = RaspberryGpioPin.PIN16.getGpioPin().getAddress();
+    public static final int ANALOG_INPUT_PIN = RaspberryGpioPin.PIN13.getGpioPin().getAddress();
+    // shared by all services, it owns variable thread
+    public static final GpioEntrypoint ENTRYPOINT = new GpioEntrypoint(noop(EntityContext.class));
+
+    private GpioBenchmarkSupport() {
+    }
+
+    public static GpioEntity createEntity() {
+        GpioEntity entity = new GpioEntity();
+        entity.setEntityID(GpioEntity.PREFIX + "benchmark");
+        Set<GpioPinEntity> pins = new HashSet<>();
+        for (RaspberryGpioPin raspberryGpioPin : RaspberryGpioPin.values()) {
+            GpioPin gpioPin = raspberryGpioPin.getGpioPin();
+            GpioPinEntity pin = new GpioPinEntity();
+            pin.setEntityID(gpioPin.getAddress() + "_" + entity.getEntityID());
+            pin.setName(gpioPin.getName());
+            pin.setAddress(gpioPin.getAddress());
+            pin.setPull(PullResistance.PULL_DOWN);
+            pin.setMode(getMode(gpioPin.getAddress()));
+            pin.setOwner(entity);
+            pins.add(pin);
+        }
+        entity.setGpioPinEntities(pins);
+        return entity;
+    }
+
+    public static GPIOService createService() {
+        return new GPIOService(noop(EntityContext.class), RaspberryGpioPin.getGpioPins(), createEntity(), ENTRYPOINT);
+    }
+
+    /**
+     * Proxy that does nothing and returns nested no-op proxies for interface results(entityContext.var(), ui(), etc...)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T noop(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "noop-" + type.getSimpleName();
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType.isInterface()) {
+                return noop(returnType);
+            }
+            if (returnType.isPrimitive() && returnType != void.class) {
+                return Array.get(Array.newInstance(returnType, 1), 0);
+            }
+            return null;
+        });
+    }
+
+    private static PinMode getMode(int address) {
+        if (address == OUTPUT_PIN) {
+            return PinMode.DIGITAL_OUTPUT;
+        }
+        if (address == ANALOG_INPUT_PIN) {
+            return PinMode.ANALOG_INPUT;
+        }
+        return PinMode.DIGITAL_INPUT;
+    }
+}
@@ -0,0 +1,107 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.homio.bundle.api.EntityContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creates and destroys service on mock platform thousands of times. Trial fails if threads or file descriptors outlive services
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 1, batchSize = 200)
+@Measurement(iterations = 5, batchSize = 1000)
+public class GpioLifecycleBenchmark {
+
+    // pools of destroyed service finish asynchronously, pi4j keeps few global threads
+    private static final int THREAD_TOLERANCE = 8;
+    private static final int FD_TOLERANCE = 16;
+    private static final long SETTLE_TIMEOUT = 5000;
+
+    private final EntityContext entityContext = GpioBenchmarkSupport.noop(EntityContext.class);
+    private GpioEntity entity;
+    private int baseThreads;
+    private int baseFds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        entity = GpioBenchmarkSupport.createEntity();
+        for (GpioPinEntity pin : entity.getGpioPinEntities()) {
+            if (pin.getMode() == PinMode.DIGITAL_OUTPUT) {
+                pin.setSafeState(GpioSafeState.HIGH);
+            }
+        }
+        // lazy globals(pi4j mock registry, entrypoint variable thread) are part of baseline
+        createAndDestroy();
+        for (int i = 0; i < 5; i++) {
+            sleep();
+        }
+        baseThreads = Thread.activeCount();
+        baseFds = countFds();
+    }
+
+    @Benchmark
+    public void createAndDestroy() {
+        new GPIOService(entityContext, RaspberryGpioPin.getGpioPins(), entity, GpioBenchmarkSupport.ENTRYPOINT).destroy();
+    }
+
+    @TearDown(Level.Trial)
+    public void checkLeaks() {
+        int threads = settle(baseThreads + THREAD_TOLERANCE);
+        int fds = countFds();
+        if (threads > baseThreads + THREAD_TOLERANCE) {
+            throw new IllegalStateException("Leaked threads: " + baseThreads + " -> " + threads);
+        }
+        if (baseFds >= 0 && fds > baseFds + FD_TOLERANCE) {
+            throw new IllegalStateException("Leaked file descriptors: " + baseFds + " -> " + fds);
+        }
+        System.out.printf("%nthreads %d -> %d, file descriptors %d -> %d%n", baseThreads, threads, baseFds, fds);
+    }
+
+    /**
+     * @return live thread count once it dropped to limit or after SETTLE_TIMEOUT
+     */
+    private static int settle(int limit) {
+        long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT;
+        int threads = Thread.activeCount();
+        while (threads > limit && System.currentTimeMillis() < deadline) {
+            System.gc();
+            sleep();
+            threads = Thread.activeCount();
+        }
+        return threads;
+    }
+
+    /**
+     * @return open file descriptors of process or -1 if /proc isn't available
+     */
+    private static int countFds() {
+        String[] fds = new File("/proc/self/fd").list();
+        return fds == null ? -1 : fds.length;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.homio.bundle.gpio.gpio;
+
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalState;
+import com.pi4j.io.gpio.digital.PullResistance;
+import com.pi4j.plugin.mock.provider.gpio.digital.MockDigitalInput;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Edge dispatch from Pi4J mock input through DigitalInputModeFactory callback to N pin listeners
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GpioListenerBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int listeners;
+
+    private Context pi4j;
+    private MockDigitalInput input;
+    private boolean high;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        pi4j = GPIOService.createMockContext();
+        GpioState gpioState = new GpioState(LogManager.getLogger(GpioListenerBenchmark.class),
+            RaspberryGpioPin.PIN11.getGpioPin(), PinMode.DIGITAL_INPUT, PullResistance.OFF);
+        PinMode.DIGITAL_INPUT.getGpioModeFactory().createGpioState(pi4j, gpioState,
+            GpioBenchmarkSupport.createEntity().getGpioProviderModel());
+        for (int i = 0; i < listeners; i++) {
+            gpioState.getListeners().put("listener_" + i, state -> this.blackhole.consume(state));
+        }
+        input = (MockDigitalInput) gpioState.getInstance();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pi4j.shutdown();
+    }
+
+    @Benchmark
+    public void edgeDispatch() {
+        high = !high;
+        input.mockState(high ? DigitalState.HIGH : DigitalState.LOW);
+    }
+}
@@ -0,0 +1,64 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.homio.bundle.api.EntityContext;
+import org.homio.bundle.api.model.OptionModel;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.gpio.gpio.GpioController.Mode;
+import org.homio.bundle.gpio.gpio.service.GpioConsolePlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GpioServiceBenchmark {
+
+    private GPIOService service;
+    private GpioConsolePlugin consolePlugin;
+    private boolean high;
+
+    @Setup
+    public void setup() {
+        service = GpioBenchmarkSupport.createService();
+        consolePlugin = new GpioConsolePlugin(GpioBenchmarkSupport.noop(EntityContext.class), service);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public org.homio.bundle.api.state.State getState() {
+        return service.getState(GpioBenchmarkSupport.INPUT_PIN);
+    }
+
+    @Benchmark
+    public void setValue() {
+        high = !high;
+        service.setValue(GpioBenchmarkSupport.OUTPUT_PIN, OnOffType.of(high));
+    }
+
+    @Benchmark
+    public List<OptionModel> controllerGetPins() {
+        return GpioController.getPins(service.getState(), Mode.input);
+    }
+
+    @Benchmark
+    public List<OptionModel> cachedPinOptions() {
+        return service.getPinOptions(Mode.input);
+    }
+
+    @Benchmark
+    public Collection<GpioConsolePlugin.GpioPluginEntity> consolePluginGetValue() {
+        return consolePlugin.getValue();
+    }
+}
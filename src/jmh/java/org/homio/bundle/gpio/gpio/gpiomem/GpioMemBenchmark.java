@@ -0,0 +1,98 @@
+package org.homio.bundle.gpio.gpio.gpiomem;
+
+import com.pi4j.Pi4J;
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalInput;
+import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalState;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.GPIOService;
+import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Pin write/read cost through pi4j api per provider. By default GPIOMEM runs against regular file, on board run with
+ * '-p provider=GPIOMEM,RPI -p registers=/dev/gpiomem' to compare with pigpio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GpioMemBenchmark {
+
+    @Param({"MOCK", "GPIOMEM"})
+    private String provider;
+
+    @Param("")
+    private String registers;
+
+    private Context pi4j;
+    private GpioMemRegisters gpioMemRegisters;
+    private Path registerFile;
+    private DigitalOutput output;
+    private DigitalInput input;
+    private boolean high;
+
+    @Setup
+    public void setup() throws Exception {
+        GpioProviderIdModel model = GpioEntity.getProviderModel(provider);
+        if ("GPIOMEM".equals(provider)) {
+            Path path;
+            if (registers.isEmpty()) {
+                registerFile = Files.createTempFile("gpiomem", ".bin");
+                Files.write(registerFile, new byte[GpioMemRegisters.BLOCK_SIZE]);
+                path = registerFile;
+            } else {
+                path = Path.of(registers);
+            }
+            gpioMemRegisters = GpioMemRegisters.open(path);
+            pi4j = GPIOService.createMockContext(new GpioMemDigitalInputProvider(gpioMemRegisters),
+                new GpioMemDigitalOutputProvider(gpioMemRegisters));
+        } else if ("MOCK".equals(provider)) {
+            pi4j = GPIOService.createMockContext();
+        } else {
+            pi4j = Pi4J.newAutoContext();
+        }
+        output = pi4j.create(DigitalOutput.newConfigBuilder(pi4j)
+                                          .address(RaspberryGpioPin.PIN16.getGpioPin().getAddress())
+                                          .provider(model.getDigitalOutputProviderId())
+                                          .build());
+        input = pi4j.create(DigitalInput.newConfigBuilder(pi4j)
+                                        .address(RaspberryGpioPin.PIN18.getGpioPin().getAddress())
+                                        .provider(model.getDigitalInputProviderId())
+                                        .build());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pi4j.shutdown();
+        if (gpioMemRegisters != null) {
+            gpioMemRegisters.close();
+        }
+        if (registerFile != null) {
+            Files.deleteIfExists(registerFile);
+        }
+    }
+
+    @Benchmark
+    public DigitalOutput write() {
+        high = !high;
+        return output.state(high ? DigitalState.HIGH : DigitalState.LOW);
+    }
+
+    @Benchmark
+    public DigitalState read() {
+        return input.state();
+    }
+}
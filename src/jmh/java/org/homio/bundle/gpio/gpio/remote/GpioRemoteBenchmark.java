@@ -0,0 +1,98 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import com.pi4j.context.Context;
+import java.util.concurrent.TimeUnit;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.GPIOService;
+import org.homio.bundle.gpio.gpio.metrics.LatencyHistogram;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Hub -> loopback -> mock backed agent -> hub. Output write is echoed back by agent as pin change, so one round trip covers
+ * SET batch, agent side provider write, STATE batch and hub side decode
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GpioRemoteBenchmark {
+
+    private static final int BATCH = 100;
+
+    private Context agentContext;
+    private GpioRemoteAgent agent;
+    private GpioRemoteClient client;
+    private int address;
+    private int value;
+    private volatile int echoValue = -1;
+    private volatile long echoCount;
+    private long sentCount;
+
+    @Setup
+    public void setup() throws Exception {
+        agentContext = GPIOService.createMockContext();
+        agent = new GpioRemoteAgent(agentContext, GpioEntity.getProviderModel("MOCK"), 0);
+        client = new GpioRemoteClient("127.0.0.1", agent.getPort(), new LatencyHistogram());
+        if (!client.awaitConnected(5000)) {
+            throw new IllegalStateException("Unable to connect to agent");
+        }
+        address = RaspberryGpioPin.PIN16.getGpioPin().getAddress();
+        client.addStateConsumer(address, value -> {
+            echoValue = value;
+            echoCount++;
+        });
+        client.provision(address, PinMode.DIGITAL_OUTPUT.ordinal(), -1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!agent.getPins().containsKey(address)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Agent didn't provision pin " + address);
+            }
+            Thread.sleep(10);
+        }
+        // first write provision pin on agent side and emit initial event
+        roundTrip();
+        sentCount = echoCount;
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        agent.close();
+        agentContext.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int roundTrip() {
+        value ^= 1;
+        client.set(address, value);
+        while (echoValue != value) {
+            Thread.onSpinWait();
+        }
+        sentCount++;
+        return echoValue;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(BATCH)
+    public long batchedThroughput() {
+        for (int i = 0; i < BATCH; i++) {
+            value ^= 1;
+            client.set(address, value);
+        }
+        sentCount += BATCH;
+        while (echoCount < sentCount) {
+            Thread.onSpinWait();
+        }
+        return echoCount;
+    }
+}
@@ -17,6 +17,16 @@ import lombok.Setter;
 import org.homio.bundle.gpio.gpio.GPIOService;
 import org.homio.bundle.gpio.gpio.GpioPinEntity;
 import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipDigitalOutputProvider;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipLines;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemDigitalOutputProvider;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemRegisters;
+import org.homio.bundle.gpio.gpio.remote.RemoteDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.remote.RemoteDigitalOutputProvider;
+import org.homio.bundle.gpio.gpio.simulation.GpioSimAnalogInputProvider;
+import org.homio.bundle.gpio.gpio.simulation.GpioSimDigitalInputProvider;
 import org.jetbrains.annotations.NotNull;
 import org.homio.bundle.api.EntityContext;
 import org.homio.bundle.api.entity.types.MicroControllerBaseEntity;
@@ -66,6 +76,50 @@ public final class GpioEntity extends MicroControllerBaseEntity<GpioEntity>
                 PiGpioPlugin.I2C_PROVIDER_ID
             ));
         }
+        // digital pins driven directly through memory mapped registers
+        GPIO_PROVIDERS.put("GPIOMEM", new GpioProviderIdModel(
+            GpioMemDigitalInputProvider.ID,
+            GpioMemDigitalOutputProvider.ID,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        ));
+        // digital pins as lines of /dev/gpiochipN character device
+        GPIO_PROVIDERS.put("GPIOCHIP", new GpioProviderIdModel(
+            GpioChipDigitalInputProvider.ID,
+            GpioChipDigitalOutputProvider.ID,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        ));
+        // mock platform with inputs fed by scripted signals
+        GPIO_PROVIDERS.put("SIMULATION", new GpioProviderIdModel(
+            GpioSimDigitalInputProvider.ID,
+            Mock.DIGITAL_OUTPUT_PROVIDER_ID,
+            Mock.PWM_PROVIDER_ID,
+            GpioSimAnalogInputProvider.ID,
+            Mock.ANALOG_OUTPUT_PROVIDER_ID,
+            Mock.SPI_PROVIDER_ID,
+            Mock.SERIAL_PROVIDER_ID,
+            Mock.I2C_PROVIDER_ID
+        ));
+        // pins driven by remote gpio node(GpioRemoteAgent)
+        GPIO_PROVIDERS.put("REMOTE", new GpioProviderIdModel(
+            RemoteDigitalInputProvider.ID,
+            RemoteDigitalOutputProvider.ID,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null
+        ));
     }
 
     @Getter
@@ -79,7 +133,11 @@ public final class GpioEntity extends MicroControllerBaseEntity<GpioEntity>
 
     @JsonIgnore
     public GpioProviderIdModel getGpioProviderModel() {
-        return GPIO_PROVIDERS.get(getGpioProvider());
+        return getProviderModel(getGpioProvider());
+    }
+
+    public static GpioProviderIdModel getProviderModel(String provider) {
+        return GPIO_PROVIDERS.get(provider);
     }
 
     @UIField(order = 4)
@@ -92,6 +150,54 @@ public final class GpioEntity extends MicroControllerBaseEntity<GpioEntity>
         setJsonData("prv", value);
     }
 
+    /**
+     * @return 'host' or 'host:port' of remote gpio node. Used only with REMOTE provider
+     */
+    @UIField(order = 4)
+    public String getRemoteAddress() {
+        return getJsonData("ra", "");
+    }
+
+    public void setRemoteAddress(String value) {
+        setJsonData("ra", value);
+    }
+
+    /**
+     * @return gpio register map. Used only with GPIOMEM provider
+     */
+    @UIField(order = 4)
+    public String getRegisterPath() {
+        return getJsonData("rgp", GpioMemRegisters.DEFAULT_PATH);
+    }
+
+    public void setRegisterPath(String value) {
+        setJsonData("rgp", value);
+    }
+
+    /**
+     * @return gpio character device name. Used only with GPIOCHIP provider
+     */
+    @UIField(order = 4)
+    public String getGpioChip() {
+        return getJsonData("gpc", GpioChipLines.DEFAULT_CHIP);
+    }
+
+    public void setGpioChip(String value) {
+        setJsonData("gpc", value);
+    }
+
+    /**
+     * @return input signals like '11=square:1000; 13=random:10:0:1023'. Used only with SIMULATION provider
+     */
+    @UIField(order = 4)
+    public String getSimulation() {
+        return getJsonData("sim", "");
+    }
+
+    public void setSimulation(String value) {
+        setJsonData("sim", value);
+    }
+
     @UIField(order = 4)
     @UIFieldSlider(min = 1, max = 120, step = 5, header = "S")
     public int getOneWireInterval() {
@@ -102,6 +208,133 @@ public final class GpioEntity extends MicroControllerBaseEntity<GpioEntity>
         setJsonData("owi", value);
     }
 
+    @UIField(order = 5)
+    @UIFieldSlider(min = 10, max = 5000, step = 10, header = "ms")
+    public int getPollInterval() {
+        return getJsonData("pi", 100);
+    }
+
+    public void setPollInterval(int value) {
+        setJsonData("pi", value);
+    }
+
+    @UIField(order = 6)
+    @UIFieldSlider(min = 100, max = 60000, step = 100, header = "ms")
+    public int getPollMaxInterval() {
+        return getJsonData("pmi", 5000);
+    }
+
+    public void setPollMaxInterval(int value) {
+        setJsonData("pmi", value);
+    }
+
+    @UIField(order = 7)
+    public int getPollInterruptPin() {
+        return getJsonData("pip", 0);
+    }
+
+    public void setPollInterruptPin(int value) {
+        setJsonData("pip", value);
+    }
+
+    @UIField(order = 8)
+    public boolean isTraceEdges() {
+        return getJsonData("trace", false);
+    }
+
+    public void setTraceEdges(boolean value) {
+        setJsonData("trace", value);
+    }
+
+    /**
+     * @return local reactions like '11:ON -> 13:ON; 12:ON@2000 -> 13:TOGGLE' executed right in pin edge callback
+     */
+    @UIField(order = 9)
+    public String getRules() {
+        return getJsonData("rules", "");
+    }
+
+    public void setRules(String value) {
+        setJsonData("rules", value);
+    }
+
+    @UIField(order = 10)
+    @UIFieldSlider(min = 100, max = 1000, step = 50, header = "ms")
+    public int getDoubleClickTime() {
+        return getJsonData("dct", 300);
+    }
+
+    public void setDoubleClickTime(int value) {
+        setJsonData("dct", value);
+    }
+
+    @UIField(order = 11)
+    @UIFieldSlider(min = 300, max = 5000, step = 100, header = "ms")
+    public int getLongPressTime() {
+        return getJsonData("lpt", 800);
+    }
+
+    public void setLongPressTime(int value) {
+        setJsonData("lpt", value);
+    }
+
+    @UIField(order = 12)
+    @UIFieldSlider(min = 50, max = 2000, step = 50, header = "ms")
+    public int getHoldRepeatTime() {
+        return getJsonData("hrt", 250);
+    }
+
+    public void setHoldRepeatTime(int value) {
+        setJsonData("hrt", value);
+    }
+
+    /**
+     * @return multiplexed matrices like 'pad:KEYPAD:11,13,15,16/18,22,29,31' scanned by service instead of per pin events
+     */
+    @UIField(order = 13)
+    public String getMatrices() {
+        return getJsonData("mtx", "");
+    }
+
+    public void setMatrices(String value) {
+        setJsonData("mtx", value);
+    }
+
+    /**
+     * @return comma separated I2C/SPI/UART buses whose pins are not provisioned, 'NONE' - no buses, empty - pins of buses with
+     * device node are provisioned and flagged
+     */
+    @UIField(order = 14)
+    public String getReservedBuses() {
+        return getJsonData("bus", "");
+    }
+
+    public void setReservedBuses(String value) {
+        setJsonData("bus", value);
+    }
+
+    /**
+     * @return append pin events to binary log which may be replayed by SIMULATION provider
+     */
+    @UIField(order = 15)
+    public boolean isRecordEvents() {
+        return getJsonData("rec", false);
+    }
+
+    public void setRecordEvents(boolean value) {
+        setJsonData("rec", value);
+    }
+
+    @UIField(order = 16)
+    @UIFieldSlider(min = 1, max = 1024, header = "MB")
+    public int getRecordMaxSize() {
+        return getJsonData("recmax", 64);
+    }
+
+    public void setRecordMaxSize(int value) {
+        setJsonData("recmax", value);
+    }
+
     @Override
     public String getDefaultName() {
         return "Gpio";
@@ -129,7 +362,7 @@ public final class GpioEntity extends MicroControllerBaseEntity<GpioEntity>
 
     @Override
     public @NotNull GPIOService createService(@NotNull EntityContext entityContext) {
-        return new GPIOService(entityContext, RaspberryGpioPin.getGpioPins(), this);
+        return new GPIOService(entityContext, RaspberryGpioPin.getGpioPins(), this, entityContext.getBean(GpioEntrypoint.class));
     }
 
     public static class SelectGpioProviders implements DynamicOptionLoader {
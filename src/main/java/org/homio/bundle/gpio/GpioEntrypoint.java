@@ -1,8 +1,20 @@
 package org.homio.bundle.gpio;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.homio.bundle.gpio.gpio.GpioPin;
+import org.homio.bundle.gpio.gpio.GpioPinEntity;
+import org.homio.bundle.gpio.gpio.matrix.GpioMatrix;
+import org.homio.bundle.gpio.gpio.matrix.GpioMatrixDefinition;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 import org.homio.bundle.api.BundleEntrypoint;
 import org.homio.bundle.api.EntityContext;
@@ -12,20 +24,61 @@ import org.homio.bundle.api.util.BoardInfo;
 @Log4j2
 @Component
 @RequiredArgsConstructor
-public class GpioEntrypoint implements BundleEntrypoint {
+public class GpioEntrypoint implements BundleEntrypoint, DisposableBean {
 
     private final EntityContext entityContext;
+    // variables are provisioned off startup path; single thread keeps create/remove of same entity in order
+    private final ExecutorService variableExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gpio-variables");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // entityID -> latest creation of its variables, GPIOService holds variable writes until it completes
+    private final Map<String, CompletableFuture<Void>> variableTasks = new ConcurrentHashMap<>();
 
     public void init() {
-        for (GpioEntity entity : entityContext.findAll(GpioEntity.class)) {
-            createVariableGroup(entity);
-        }
-        entityContext.event().addEntityCreateListener(GpioEntity.class, "rpi-gen-create", this::createVariableGroup);
+        entityContext.findAll(GpioEntity.class).forEach(this::provisionVariables);
+        entityContext.event().addEntityCreateListener(GpioEntity.class, "rpi-gen-create", this::provisionVariables);
         entityContext.event().addEntityRemovedListener(GpioEntity.class, "rpi-gen-drop", entity -> {
-            entityContext.var().removeGroup(entity.getEntityID());
+            variableTasks.remove(entity.getEntityID());
+            variableExecutor.execute(() -> entityContext.var().removeGroup(entity.getEntityID()));
         });
     }
 
+    /**
+     * @return variables of entity, provisioned now if entity wasn't seen yet
+     */
+    public CompletableFuture<Void> getVariables(GpioEntity entity) {
+        return variableTasks.computeIfAbsent(entity.getEntityID(),
+            entityID -> CompletableFuture.runAsync(() -> createVariableGroup(entity), variableExecutor));
+    }
+
+    /**
+     * Create missing pin, gesture and keypad variables of entity in background
+     */
+    public CompletableFuture<Void> provisionVariables(GpioEntity entity) {
+        CompletableFuture<Void> task = CompletableFuture.runAsync(() -> createVariableGroup(entity), variableExecutor);
+        variableTasks.put(entity.getEntityID(), task);
+        return task;
+    }
+
+    @Override
+    public void destroy() {
+        variableExecutor.shutdownNow();
+    }
+
+    public static String getPinVariable(String entityID, int address) {
+        return "rpi_" + entityID + "_" + address;
+    }
+
+    public static String getGestureVariable(String entityID, int address) {
+        return getPinVariable(entityID, address) + "_gesture";
+    }
+
+    public static String getMatrixVariable(String entityID, String name) {
+        return "rpi_" + entityID + "_" + name + "_key";
+    }
+
     @Override
     public int order() {
         return 300;
@@ -170,12 +223,53 @@ public class GpioEntrypoint implements BundleEntrypoint {
         return "UNKNOWN";
     }
 
+    /**
+     * createVariable persists variable on every call, so only missing variables are created
+     */
     private void createVariableGroup(GpioEntity entity) {
-        entityContext.var().createGroup(entity.getEntityID(), "Raspberry[" + entity.getTitle() + "]", true, "fab fa-raspberry-pi", "#C70039");
-        // ensure variable exists
-        for (GpioPin gpioPin : RaspberryGpioPin.getGpioPins()) {
-            entityContext.var().createVariable(entity.getEntityID(), "rpi_" + entity.getEntityID() + "_" + gpioPin.getAddress(),
-                gpioPin.getName(), VariableType.Bool, builder -> builder.setDescription(gpioPin.getDescription()).setColor(gpioPin.getColor()));
+        long start = System.currentTimeMillis();
+        try {
+            String groupId = entity.getEntityID();
+            entityContext.var().createGroup(groupId, "Raspberry[" + entity.getTitle() + "]", true, "fab fa-raspberry-pi", "#C70039");
+            List<GpioPin> missing = new ArrayList<>();
+            for (GpioPin gpioPin : RaspberryGpioPin.getGpioPins()) {
+                if (!entityContext.var().exists(getPinVariable(groupId, gpioPin.getAddress()))) {
+                    missing.add(gpioPin);
+                }
+            }
+            for (GpioPin gpioPin : missing) {
+                entityContext.var().createVariable(groupId, getPinVariable(groupId, gpioPin.getAddress()), gpioPin.getName(),
+                    VariableType.Bool, builder -> builder.setDescription(gpioPin.getDescription()).setColor(gpioPin.getColor()));
+            }
+            int created = missing.size();
+            for (GpioPinEntity pin : entity.getGpioPinEntities()) {
+                String variable = getGestureVariable(groupId, pin.getAddress());
+                if (pin.isGestures() && pin.getMode() == PinMode.DIGITAL_INPUT && !entityContext.var().exists(variable)) {
+                    entityContext.var().createVariable(groupId, variable, pin.getName() + " gesture", VariableType.Any,
+                        builder -> builder.setDescription("Last gesture of " + pin.getGpioPin().getDescription()));
+                    created++;
+                }
+            }
+            for (GpioMatrixDefinition definition : parseMatrices(entity)) {
+                String variable = getMatrixVariable(groupId, definition.getName());
+                if (definition.getType() == GpioMatrix.Type.KEYPAD && !entityContext.var().exists(variable)) {
+                    entityContext.var().createVariable(groupId, variable, definition.getName() + " key", VariableType.Any,
+                        builder -> builder.setDescription("Last pressed key of keypad " + definition.getName()));
+                    created++;
+                }
+            }
+            log.info("Gpio variables of {} ready in {}ms, created: {}", groupId, System.currentTimeMillis() - start, created);
+        } catch (Exception ex) {
+            log.error("Unable to create gpio variables of {}: {}", entity.getEntityID(), ex.getMessage());
+        }
+    }
+
+    private static List<GpioMatrixDefinition> parseMatrices(GpioEntity entity) {
+        try {
+            return GpioMatrixDefinition.parse(entity.getMatrices());
+        } catch (IllegalArgumentException ex) {
+            // reported by GPIOService when matrices are started
+            return List.of();
         }
     }
 }
@@ -54,7 +54,19 @@ public enum RaspberryGpioPin {
     private final GpioPin gpioPin;
 
     RaspberryGpioPin(int address, String description, String name, String color, PinMode... supportModes) {
-        this.gpioPin = new GpioPin(address, description, name, color, new HashSet<>(Arrays.asList(supportModes)));
+        Set<PinMode> modes = new HashSet<>(Arrays.asList(supportModes));
+        if (modes.contains(DIGITAL_OUTPUT)) {
+            modes.add(PinMode.DHT22);
+            modes.add(PinMode.ULTRASONIC);
+        }
+        this.gpioPin = new GpioPin(address, description, name, color, modes);
+    }
+
+    /**
+     * @return BCM gpio number parsed from 'GPIO_NN' name
+     */
+    public int getBcm() {
+        return Integer.parseInt(gpioPin.getName().substring("GPIO_".length()));
     }
 
     @JsonCreator
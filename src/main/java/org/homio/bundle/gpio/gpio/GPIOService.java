@@ -3,6 +3,7 @@ package org.homio.bundle.gpio.gpio;
 import com.pi4j.Pi4J;
 import com.pi4j.context.Context;
 import com.pi4j.context.impl.DefaultContext;
+import com.pi4j.io.gpio.digital.Digital;
 import com.pi4j.io.gpio.digital.PullResistance;
 import com.pi4j.plugin.mock.platform.MockPlatform;
 import com.pi4j.plugin.mock.provider.gpio.analog.MockAnalogInputProvider;
@@ -13,19 +14,34 @@ import com.pi4j.plugin.mock.provider.i2c.MockI2CProvider;
 import com.pi4j.plugin.mock.provider.pwm.MockPwmProvider;
 import com.pi4j.plugin.mock.provider.serial.MockSerialProvider;
 import com.pi4j.plugin.mock.provider.spi.MockSpiProvider;
+import com.pi4j.provider.Provider;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.Getter;
@@ -33,59 +49,338 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.homio.bundle.api.EntityContext;
 import org.homio.bundle.api.EntityContextSetting;
+import org.homio.bundle.api.model.OptionModel;
 import org.homio.bundle.api.service.EntityService.ServiceInstance;
+import org.homio.bundle.api.state.DecimalType;
+import org.homio.bundle.api.state.OnOffType;
 import org.homio.bundle.api.state.State;
 import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.GpioEntrypoint;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.gesture.GpioGesture;
+import org.homio.bundle.gpio.gpio.gesture.GpioGestureDetector;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemRegisters;
+import org.homio.bundle.gpio.gpio.matrix.GpioInstancePort;
+import org.homio.bundle.gpio.gpio.matrix.GpioMatrix;
+import org.homio.bundle.gpio.gpio.matrix.GpioMatrixDefinition;
+import org.homio.bundle.gpio.gpio.matrix.GpioPort;
+import org.homio.bundle.gpio.gpio.metrics.GpioEdgeTracer;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+import org.homio.bundle.gpio.gpio.metrics.LatencyHistogram;
 import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.homio.bundle.gpio.gpio.record.GpioEventRecorder;
+import org.homio.bundle.gpio.gpio.rule.GpioRule;
+import org.homio.bundle.gpio.gpio.rule.GpioRuleContext;
+import org.homio.bundle.gpio.gpio.rule.GpioRuleTable;
+import org.homio.bundle.gpio.gpio.sensor.Dht22Sensor;
+import org.homio.bundle.gpio.gpio.sensor.GpioBitBangEngine;
+import org.homio.bundle.gpio.gpio.sensor.GpioBitBangPin;
+import org.homio.bundle.gpio.gpio.sensor.GpioBitBangSensor;
+import org.homio.bundle.gpio.gpio.sensor.UltrasonicSensor;
 import org.homio.bundle.gpio.gpio.service.GpioConsolePlugin;
+import org.homio.bundle.gpio.gpio.service.GpioMetricsConsolePlugin;
+import org.homio.bundle.gpio.gpio.stream.GpioPinStream;
+import org.homio.bundle.gpio.gpio.stream.GpioSseSubscriber;
+import org.homio.bundle.gpio.gpio.timer.GpioTimedCommand;
+import org.homio.bundle.gpio.gpio.timer.GpioTimerWheel;
 
 @Log4j2
 @RequiredArgsConstructor
 public class GPIOService implements ServiceInstance<GpioEntity> {
 
+    // one matrix row is served per tick
+    private static final long MATRIX_TICK_MICROS = 1000;
+    private static final long MATRIX_DEBOUNCE_MICROS = 20000;
+    private static final long SHUTDOWN_TIMEOUT = 2000;
+    private static final int SHUTDOWN_THREADS = 4;
+    private static final long RECORD_FLUSH_INTERVAL = 1000;
+
     private final EntityContext entityContext;
     private final Map<String, MutablePair<Long, Float>> ds18B20Values = new HashMap<>();
+    // pin table, replaced as whole when provider is switched
+    @Getter
+    private volatile Map<Integer, GpioState> state = new ConcurrentHashMap<>();
+    private volatile GpioBackend backend;
+    private final ScheduledExecutorService executor;
+    private final GpioPollingScheduler pollingScheduler;
+    private final GpioTimerWheel timerWheel;
+    // address -> active timed command. New command replaces previous one of same pin
+    private final Map<Integer, GpioTimedCommand> timedCommands = new ConcurrentHashMap<>();
+    private final GpioRuleContext ruleContext = new ServiceRuleContext();
+    @Getter
+    private final GpioPinStream pinStream;
+    private final AtomicInteger configVersion = new AtomicInteger();
+    private final Map<GpioController.Mode, List<OptionModel>> pinOptions = new ConcurrentHashMap<>();
+    private final String optionsETagPrefix = Long.toHexString(System.nanoTime());
+    private final AtomicInteger optionsVersion = new AtomicInteger();
+    private volatile List<String> ds18B20Sensors;
+    private ScheduledFuture<?> ds18B20RefreshFuture;
+    private int ds18B20RefreshInterval;
+    @Getter
+    private final GpioMetrics metrics = new GpioMetrics();
+    private final LatencyHistogram variableWriteTimer = metrics.timer(GpioMetrics.VARIABLE_WRITE);
     @Getter
-    private final Map<Integer, GpioState> state = new ConcurrentHashMap<>();
-    private final Context pi4j;
+    private final GpioEdgeTracer tracer = new GpioEdgeTracer();
     @Value("${w1BaseDir:/sys/devices/w1_bus_master1}")
-    private Path w1BaseDir;
+    private Path w1BaseDir = Paths.get("/sys/devices/w1_bus_master1");
+    private Path snapshotDir = Paths.get(System.getProperty("user.home"), ".homio", "gpio");
+    private final GpioStateSnapshot snapshot;
+    // null if event recording disabled
+    private GpioEventRecorder recorder;
+    private long recorderMaxSize;
+    private ScheduledFuture<?> recorderFlushFuture;
     @Getter
     private GpioEntity entity;
     @Getter
     private Set<GpioPin> availableGpioPins;
+    // validation of current entity pins, replaced as whole on every update
+    @Getter
+    private volatile GpioPinIndex pinIndex = GpioPinIndex.EMPTY;
+    private final GpioBitBangEngine bitBangEngine;
+    // registers used by bit-banged sensors when provider itself isn't memory mapped
+    private GpioMemRegisters sensorRegisters;
+    // name -> running matrix scanner
+    private final Map<String, GpioMatrix> matrices = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> matrixFutures = new ConcurrentHashMap<>();
+    // LED frames of stopped matrices, restored when matrices are started again after entity update
+    private final Map<String, int[]> matrixFrames = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService matrixExecutor;
+    // builds context of new provider while current one keeps serving pins
+    private final ExecutorService switchExecutor;
+    // sends pin changes to server-sent-events clients
+    private final ExecutorService sseExecutor;
+    private final Set<GpioSseSubscriber> sseSubscribers = ConcurrentHashMap.newKeySet();
+    // creates variables of entity in background, writes are held in pendingVariables until they exist
+    private final GpioEntrypoint entrypoint;
+    private final AtomicInteger variablesGeneration = new AtomicInteger();
+    // guarded by itself, latest value per variable
+    private final Map<String, Object> pendingVariables = new LinkedHashMap<>();
+    private volatile boolean variablesReady;
 
     @SneakyThrows
-    public GPIOService(EntityContext entityContext, Set<GpioPin> availableGpioPins, GpioEntity entity) {
+    public GPIOService(EntityContext entityContext, Set<GpioPin> availableGpioPins, GpioEntity entity, GpioEntrypoint entrypoint) {
         this.entity = entity;
         this.entityContext = entityContext;
+        this.entrypoint = entrypoint;
         this.availableGpioPins = availableGpioPins;
-        this.pi4j = createContext();
+        this.backend = GpioBackend.create(entity, metrics);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gpio-" + entity.getEntityID());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pollingScheduler = new GpioPollingScheduler(executor);
+        this.timerWheel = new GpioTimerWheel("gpio-timer-" + entity.getEntityID(), 10, TimeUnit.MILLISECONDS, 512);
+        this.pinStream = new GpioPinStream(executor, 100);
+        this.bitBangEngine = new GpioBitBangEngine("gpio-bitbang-" + entity.getEntityID());
+        this.matrixExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gpio-matrix-" + entity.getEntityID());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+        this.switchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gpio-switch-" + entity.getEntityID());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sseExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "gpio-sse-" + entity.getEntityID());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.snapshot = openSnapshot(entity);
 
-        GpioUtil.printInfo(pi4j, log);
+        GpioUtil.printInfo(backend.getPi4j(), log);
+        this.metrics.gauge("pins.provisioned", () -> state.size());
+        this.metrics.gauge("pins.listeners", () -> state.values().stream().mapToLong(s -> s.getListeners().size()).sum());
+        this.metrics.gauge("pins.waiters", () -> state.values().stream().mapToLong(GpioState::getWaitersCount).sum());
+        this.metrics.gauge("timers.pending", timerWheel::getPending);
         createOrUpdateGpioPins(entity);
 
         this.entityContext.ui().registerConsolePlugin("gpio-console-" + entity.getEntityID(),
             new GpioConsolePlugin(entityContext, this));
+        this.entityContext.ui().registerConsolePlugin("gpio-metrics-" + entity.getEntityID(),
+            new GpioMetricsConsolePlugin(entityContext, this));
     }
 
+    /**
+     * @return null if pin isn't provisioned or its DHT22/ULTRASONIC sensor failed to start
+     */
     public @Nullable State getState(int address) {
         GpioState gpioState = getState().get(address);
-        return gpioState == null ? null : gpioState.getPinMode().getGpioModeFactory().getState(gpioState.getInstance());
+        if (gpioState == null) {
+            return null;
+        }
+        if (gpioState.getPinMode().isBitBang()) {
+            return gpioState.getSensor() == null ? null : new DecimalType(readSensor(address)[0]);
+        }
+        return gpioState.getPinMode().getGpioModeFactory().getState(gpioState.getInstance());
     }
 
-    public void setValue(int address, State state) {
+    /**
+     * Read DHT22/ULTRASONIC pin. Values are cached for sensor minimal sample interval, so may be called as often as needed
+     *
+     * @return DHT22: temperature, humidity; ULTRASONIC: distance in cm
+     */
+    public float[] readSensor(int address) {
         GpioState gpioState = getState().get(address);
+        GpioBitBangSensor sensor = gpioState == null ? null : gpioState.getSensor();
+        if (sensor == null) {
+            throw new IllegalArgumentException("Pin " + address + " is not DHT22/ULTRASONIC sensor");
+        }
+        float[] values = bitBangEngine.read(sensor);
+        DecimalType state = new DecimalType(values[0]);
         if (!Objects.equals(gpioState.getLastState(), state)) {
-            entityContext.var().set("rpi_" + entity.getEntityID() + "_" + address, state);
-            gpioState.getPinMode().getGpioModeFactory().setState(gpioState.getInstance(), state);
+            gpioState.updateState(state);
+        }
+        return values;
+    }
+
+    /**
+     * @return last known pin state without touching hardware. Falls back to read if pin has no events yet
+     */
+    public @Nullable State getLastState(int address) {
+        GpioState gpioState = getState().get(address);
+        if (gpioState == null) {
+            return null;
+        }
+        State lastState = gpioState.getLastState();
+        return lastState == null ? getState(address) : lastState;
+    }
+
+    /**
+     * Subscribe server-sent-events client to pin stream. Emitter is completed when service is destroyed
+     *
+     * @param pins - empty to receive all pins
+     * @param lastEventID - last seq received by reconnected client or null
+     */
+    public SseEmitter streamEvents(Set<Integer> pins, @Nullable Long lastEventID) {
+        SseEmitter emitter = new SseEmitter(0L);
+        GpioSseSubscriber subscriber = new GpioSseSubscriber(sseExecutor, emitter, entity.getEntityID(), pins, 256);
+        sseSubscribers.add(subscriber);
+        Runnable unsubscribe = pinStream.subscribe(subscriber, lastEventID);
+        subscriber.setUnsubscribe(() -> {
+            unsubscribe.run();
+            sseSubscribers.remove(subscriber);
+        });
+        return emitter;
+    }
+
+    /**
+     * @return number which changes every time any pin got recreated(mode/pull change)
+     */
+    public int getConfigVersion() {
+        return configVersion.get();
+    }
+
+    public void setValue(int address, State state) {
+        if (write(address, state)) {
+            setVariable(address, state);
+        }
+    }
+
+    /**
+     * Write state to hardware without publishing variable
+     *
+     * @return true if pin was written
+     */
+    private boolean write(int address, State state) {
+        GpioState gpioState = getState().get(address);
+        if (gpioState == null) {
+            throw new IllegalArgumentException("Pin " + address + " is not provisioned");
+        }
+        if (gpioState.getPinMode().isBitBang()) {
+            throw new IllegalArgumentException("Pin " + address + " is " + gpioState.getPinMode() + " sensor and can't be written");
+        }
+        if (gpioState.isClaimed()) {
+            log.debug("Write '{}' to pin {} ignored, pin is driven by matrix", state, address);
+            return false;
+        }
+        GpioOutputGuard guard = gpioState.getGuard();
+        if (Objects.equals(gpioState.getLastState(), state)) {
+            if (guard != null) {
+                guard.cancelPending();
+            }
+            return false;
+        }
+        if (guard != null) {
+            long decision = guard.check(gpioState.getLastState(), state);
+            if (decision == GpioOutputGuard.REJECT) {
+                log.debug("Write '{}' to pin {} rejected by output policy", state, address);
+                return false;
+            }
+            if (decision > 0) {
+                guard.defer(state, decision, executor, deferred -> setValue(address, deferred));
+                return false;
+            }
+            guard.cancelPending();
+        }
+        gpioState.getPinMode().getGpioModeFactory().setState(gpioState.getInstance(), state);
+        if (guard != null) {
+            guard.onWritten(state);
+        }
+        if (snapshot != null) {
+            snapshot.countWrite(address);
+        }
+        return true;
+    }
+
+    /**
+     * Write state after delay. Timed commands don't block caller and are independent of plain setValue calls
+     */
+    public GpioTimedCommand setValueAfter(int address, State state, long delayMillis) {
+        return startTimedCommand(GpioTimedCommand.setAfter(address, state, delayMillis, timerWheel, this::timedWrite,
+            this::onTimedCommandDone), delayMillis);
+    }
+
+    /**
+     * Write state now and inverted state after duration
+     */
+    public GpioTimedCommand pulse(int address, OnOffType state, long durationMillis) {
+        return startTimedCommand(GpioTimedCommand.pulse(address, state, durationMillis, timerWheel, this::timedWrite,
+            this::onTimedCommandDone), 0);
+    }
+
+    /**
+     * @param count - number of ON/OFF cycles, 0 - until cancelled
+     */
+    public GpioTimedCommand blink(int address, long onMillis, long offMillis, int count) {
+        return startTimedCommand(GpioTimedCommand.blink(address, onMillis, offMillis, count, timerWheel, this::timedWrite,
+            this::onTimedCommandDone), 0);
+    }
+
+    public void cancelTimedCommand(int address) {
+        GpioTimedCommand command = timedCommands.remove(address);
+        if (command != null) {
+            command.cancel();
+        }
+    }
+
+    /**
+     * Register waiter which runs when gesture detected on pin. Gesture detection has to be enabled for pin
+     */
+    public void addGestureWaiter(String name, int address, GpioGesture gesture, Runnable waiter) {
+        GpioGestureDetector detector = state.get(address).getGestureDetector();
+        if (detector == null) {
+            throw new IllegalStateException("Gesture detection is disabled for pin: " + address);
+        }
+        detector.getWaiters().get(gesture).put(name, waiter);
+    }
+
+    public void removeGestureWaiter(int address, GpioGesture gesture, String name) {
+        GpioState gpioState = state.get(address);
+        if (gpioState != null && gpioState.getGestureDetector() != null) {
+            gpioState.getGestureDetector().getWaiters().get(gesture).remove(name);
         }
     }
 
@@ -97,6 +392,49 @@ public class GPIOService implements ServiceInstance<GpioEntity> {
         state.get(address).getListeners().remove(name);
     }
 
+    /**
+     * Register waiter which runs only when pin switched to expectedState. Unlike listeners, non matched waiters cost nothing on edge
+     */
+    public void addGpioWaiter(String name, int address, State expectedState, Runnable waiter) {
+        state.get(address).addWaiter(expectedState, name, waiter);
+    }
+
+    public void removeGpioWaiter(int address, State expectedState, String name) {
+        GpioState gpioState = state.get(address);
+        if (gpioState != null) {
+            gpioState.removeWaiter(expectedState, name);
+        }
+    }
+
+    /**
+     * Set frame buffer row of LED matrix, bit i - column i lit. Picked up by next refresh of row
+     */
+    public void setMatrixRow(String name, int row, int bits) {
+        GpioMatrix matrix = getLedMatrix(name);
+        checkMatrixIndex(matrix, row, matrix.getRowCount(), "Row");
+        matrix.setRow(row, bits);
+    }
+
+    public void setMatrixPixel(String name, int row, int col, boolean on) {
+        GpioMatrix matrix = getLedMatrix(name);
+        checkMatrixIndex(matrix, row, matrix.getRowCount(), "Row");
+        checkMatrixIndex(matrix, col, matrix.getColCount(), "Column");
+        matrix.setPixel(row, col, on);
+    }
+
+    public GpioMatrix getMatrix(String name) {
+        GpioMatrix matrix = matrices.get(name);
+        if (matrix == null) {
+            throw new IllegalArgumentException("Gpio matrix '" + name + "' is not configured");
+        }
+        return matrix;
+    }
+
+    public List<OptionModel> getMatrixOptions(GpioMatrix.Type type) {
+        return matrices.values().stream().filter(matrix -> matrix.getType() == type)
+                       .map(matrix -> OptionModel.of(matrix.getName(), matrix.toString())).collect(Collectors.toList());
+    }
+
     public Float getDS18B20Value(String sensorID) {
         MutablePair<Long, Float> pair = ds18B20Values.get(sensorID);
         if (pair != null) {
@@ -109,17 +447,38 @@ public class GPIOService implements ServiceInstance<GpioEntity> {
         }
         pair.setLeft(System.currentTimeMillis());
 
-        List<String> rawDataAsLines = getRawDataAsLines(sensorID);
-        float value = -1;
-        if (rawDataAsLines != null) {
-            String line = rawDataAsLines.get(1);
-            value = Float.parseFloat(line.substring(line.indexOf("t=") + "t=".length())) / 1000;
-        }
-        pair.setValue(value);
+        long start = System.nanoTime();
+        pair.setValue(GpioUtil.parseDS18B20Value(getRawDataAsLines(sensorID)));
+        metrics.timer(GpioMetrics.DS18B20_READ).recordSince(start);
 
         return pair.getValue();
     }
 
+    /**
+     * @return precomputed pin menu options. Cache is dropped on every entity update
+     */
+    public List<OptionModel> getPinOptions(GpioController.Mode mode) {
+        return pinOptions.computeIfAbsent(mode, key -> Collections.unmodifiableList(GpioController.getPins(state, key)));
+    }
+
+    /**
+     * @return value which changes every time pin options cache dropped. Unique across service instances
+     */
+    public String getPinOptionsETag() {
+        return optionsETagPrefix + "-" + optionsVersion.get();
+    }
+
+    /**
+     * @return DS18B20 sensors list which is refreshed in background every 'oneWireInterval' seconds
+     */
+    public List<String> getCachedDS18B20() {
+        List<String> sensors = ds18B20Sensors;
+        if (sensors == null) {
+            sensors = refreshDS18B20();
+        }
+        return sensors;
+    }
+
     @SneakyThrows
     public List<String> getDS18B20() {
         if (EntityContextSetting.isDevEnvironment()) {
@@ -210,13 +569,44 @@ public class GPIOService implements ServiceInstance<GpioEntity> {
     @Override
     public boolean entityUpdated(GpioEntity entity) {
         this.entity = entity;
-        createOrUpdateGpioPins(entity);
+        if (GpioBackend.getKey(entity).equals(backend.getKey())) {
+            createOrUpdateGpioPins(entity);
+        } else {
+            switchExecutor.execute(this::switchBackend);
+        }
         return true;
     }
 
     @Override
     public void destroy() {
+        this.pollingScheduler.shutdown();
+        this.timedCommands.values().forEach(GpioTimedCommand::cancel);
+        this.timerWheel.close();
+        this.bitBangEngine.close();
+        stopMatrices();
+        this.matrixExecutor.shutdownNow();
+        this.switchExecutor.shutdownNow();
+        this.sseSubscribers.forEach(GpioSseSubscriber::complete);
+        this.sseExecutor.shutdownNow();
+        this.executor.shutdownNow();
+        shutdownContext(state.values(), backend, true);
+        if (sensorRegisters != null) {
+            try {
+                sensorRegisters.close();
+            } catch (IOException ex) {
+                log.warn("Unable to close gpio registers: {}", ex.getMessage());
+            }
+        }
+        closeRecorder();
+        if (snapshot != null) {
+            try {
+                snapshot.close();
+            } catch (IOException ex) {
+                log.warn("Unable to flush gpio snapshot: {}", ex.getMessage());
+            }
+        }
         this.entityContext.ui().unRegisterConsolePlugin("gpio-console-" + entity.getEntityID());
+        this.entityContext.ui().unRegisterConsolePlugin("gpio-metrics-" + entity.getEntityID());
     }
 
     @Override
@@ -230,22 +620,120 @@ public class GPIOService implements ServiceInstance<GpioEntity> {
       }
     */
 
-    private Context createContext() {
-        if (GpioEntity.BOARD_TYPE.equals("UNKNOWN")) {
-            return Pi4J.newContextBuilder()
-                       .add(new MockPlatform())
-                       .add(MockAnalogInputProvider.newInstance(),
-                           MockAnalogOutputProvider.newInstance(),
-                           MockSpiProvider.newInstance(),
-                           MockPwmProvider.newInstance(),
-                           MockSerialProvider.newInstance(),
-                           MockI2CProvider.newInstance(),
-                           MockDigitalInputProvider.newInstance(),
-                           MockDigitalOutputProvider.newInstance())
-                       .build();
+    private static boolean isMockPlatform(GpioEntity entity) {
+        return "MOCK".equals(entity.getGpioProvider()) || "SIMULATION".equals(entity.getGpioProvider());
+    }
+
+    public static Context createMockContext(Provider... extraProviders) {
+        return Pi4J.newContextBuilder()
+                   .add(new MockPlatform())
+                   .add(MockAnalogInputProvider.newInstance(),
+                       MockAnalogOutputProvider.newInstance(),
+                       MockSpiProvider.newInstance(),
+                       MockPwmProvider.newInstance(),
+                       MockSerialProvider.newInstance(),
+                       MockI2CProvider.newInstance(),
+                       MockDigitalInputProvider.newInstance(),
+                       MockDigitalOutputProvider.newInstance())
+                   .add(extraProviders)
+                   .build();
+    }
+
+    private @Nullable GpioStateSnapshot openSnapshot(GpioEntity entity) {
+        try {
+            return new GpioStateSnapshot(snapshotDir.resolve(entity.getEntityID() + ".snapshot"));
+        } catch (Exception ex) {
+            log.warn("Unable to open gpio snapshot. Pin states wouldn't be restored after restart: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private GpioTimedCommand startTimedCommand(GpioTimedCommand command, long initialDelayMillis) {
+        if (!state.containsKey(command.getAddress())) {
+            throw new IllegalArgumentException("Pin " + command.getAddress() + " is not provisioned");
+        }
+        GpioTimedCommand previous = timedCommands.put(command.getAddress(), command);
+        if (previous != null) {
+            previous.cancel();
+        }
+        return command.start(initialDelayMillis);
+    }
+
+    // runs on timer wheel thread
+    private void timedWrite(GpioTimedCommand command, State value) {
+        executor.execute(() -> {
+            if (!command.isCancelled()) {
+                setValue(command.getAddress(), value);
+            }
+        });
+    }
+
+    private void onTimedCommandDone(GpioTimedCommand command) {
+        timedCommands.remove(command.getAddress(), command);
+    }
+
+    private void setVariable(int address, State state) {
+        long start = System.nanoTime();
+        setVariable(GpioEntrypoint.getPinVariable(entity.getEntityID(), address), state);
+        variableWriteTimer.recordSince(start);
+    }
+
+    private void setVariable(String variable, Object value) {
+        if (!variablesReady) {
+            synchronized (pendingVariables) {
+                if (!variablesReady) {
+                    pendingVariables.remove(variable);
+                    pendingVariables.put(variable, value);
+                    return;
+                }
+            }
+        }
+        entityContext.var().set(variable, value);
+    }
+
+    /**
+     * Hold variable writes until entrypoint created missing variables of current entity settings
+     */
+    private void updateVariables(GpioEntity entity) {
+        int generation = variablesGeneration.incrementAndGet();
+        variablesReady = false;
+        CompletableFuture<Void> variables = generation == 1 ? entrypoint.getVariables(entity) : entrypoint.provisionVariables(entity);
+        variables.thenRun(() -> onVariablesReady(generation));
+    }
+
+    private void onVariablesReady(int generation) {
+        synchronized (pendingVariables) {
+            if (generation != variablesGeneration.get()) {
+                return;
+            }
+            try {
+                pendingVariables.forEach(entityContext.var()::set);
+            } catch (Exception ex) {
+                log.warn("Unable to publish gpio variables of {}: {}", entity.getEntityID(), ex.getMessage());
+            }
+            pendingVariables.clear();
+            variablesReady = true;
+        }
+    }
+
+    private List<String> refreshDS18B20() {
+        try {
+            ds18B20Sensors = Collections.unmodifiableList(getDS18B20());
+        } catch (Exception ex) {
+            log.warn("Unable to read DS18B20 sensors: {}", ex.getMessage());
+            ds18B20Sensors = Collections.emptyList();
+        }
+        return ds18B20Sensors;
+    }
+
+    private synchronized void scheduleDS18B20Refresh(int interval) {
+        if (ds18B20RefreshInterval != interval) {
+            ds18B20RefreshInterval = interval;
+            if (ds18B20RefreshFuture != null) {
+                ds18B20RefreshFuture.cancel(false);
+            }
+            ds18B20RefreshFuture = executor.scheduleWithFixedDelay(this::refreshDS18B20, 0, interval, TimeUnit.SECONDS);
         }
-        // auto discovery
-        return Pi4J.newAutoContext();
     }
 
     private List<String> getRawDataAsLines(String sensorID) {
@@ -263,11 +751,382 @@ public class GPIOService implements ServiceInstance<GpioEntity> {
         }
     }
 
-    private void createOrUpdateGpioPins(GpioEntity entity) {
-        Set<GpioPinEntity> gpioPinEntities = entity.getGpioPinEntities();
+    private synchronized void createOrUpdateGpioPins(GpioEntity entity) {
+        if (tracer.isEnabled() != entity.isTraceEdges()) {
+            tracer.clear();
+            tracer.setEnabled(entity.isTraceEdges());
+        }
+        // matrix ports hold pin instances which may be recreated below
+        stopMatrices();
+        Set<GpioPinEntity> gpioPinEntities = validatePins(entity);
         for (GpioPinEntity gpioPin : gpioPinEntities) {
             createOrUpdateState(gpioPin.getGpioPin(), gpioPin.getMode(), gpioPin.getPull());
         }
+        updatePinSettings(entity, gpioPinEntities);
+    }
+
+    /**
+     * Build context of new provider in background, provision pins against it and swap pin table. Old context keeps serving pins
+     * until swap and is torn down after it, so only swap itself holds service lock
+     */
+    private void switchBackend() {
+        GpioEntity entity = this.entity;
+        GpioBackend previous = backend;
+        if (GpioBackend.getKey(entity).equals(previous.getKey())) {
+            return;
+        }
+        long start = System.nanoTime();
+        GpioBackend next;
+        try {
+            next = GpioBackend.create(entity, metrics);
+        } catch (Exception ex) {
+            log.error("Unable to switch gpio provider to {}. Keep {}: {}", entity.getGpioProvider(), previous.getKey(), ex.getMessage());
+            return;
+        }
+        long swapStart = System.nanoTime();
+        Map<Integer, GpioState> previousState;
+        synchronized (this) {
+            stopMatrices();
+            Set<GpioPinEntity> gpioPinEntities = validatePins(entity);
+            Map<Integer, GpioState> table = new ConcurrentHashMap<>();
+            for (GpioPinEntity gpioPin : gpioPinEntities) {
+                GpioState gpioState = provisionState(next.getPi4j(), gpioPin.getGpioPin(), gpioPin.getMode(), gpioPin.getPull());
+                GpioState old = state.get(gpioPin.getAddress());
+                if (old != null) {
+                    inheritState(old, gpioState);
+                }
+                table.put(gpioPin.getAddress(), gpioState);
+            }
+            previousState = state;
+            state = table;
+            backend = next;
+            configVersion.incrementAndGet();
+            updatePinSettings(entity, gpioPinEntities);
+        }
+        long swapNanos = System.nanoTime() - swapStart;
+        metrics.timer(GpioMetrics.PROVIDER_SWAP).record(swapNanos);
+        shutdownContext(previousState.values(), previous, false);
+        log.info("Switched gpio provider {} -> {} in {}ms, pin table swapped in {}ms", previous.getKey(), next.getKey(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), TimeUnit.NANOSECONDS.toMillis(swapNanos));
+    }
+
+    /**
+     * Move workflow listeners/waiters of pin to its instance in new pin table. Rules and gestures are handed over so update
+     * cancels them and keeps gesture waiters
+     */
+    private void inheritState(GpioState from, GpioState to) {
+        from.getListeners().forEach(to.getListeners()::putIfAbsent);
+        from.getWaiters().forEach((expected, group) -> group.forEach((name, waiter) -> to.addWaiter(expected, name, waiter)));
+        to.setRules(from.getRules());
+        to.setGestureDetector(from.getGestureDetector());
+    }
+
+    private void updatePinSettings(GpioEntity entity, Set<GpioPinEntity> gpioPinEntities) {
+        updateOutputGuards(gpioPinEntities);
+        updateSensors(gpioPinEntities);
+        updateRules(entity);
+        updateGestures(gpioPinEntities);
+        pinOptions.clear();
+        optionsVersion.incrementAndGet();
+        startMatrices(entity);
+        updatePolling(entity);
+        updateRecorder(entity);
+        scheduleDS18B20Refresh(entity.getOneWireInterval());
+        updateVariables(entity);
+    }
+
+    /**
+     * Build pin index and release pins which became invalid
+     *
+     * @return pins which may be provisioned
+     */
+    private Set<GpioPinEntity> validatePins(GpioEntity entity) {
+        Set<GpioBus> buses = Collections.emptySet();
+        // pins of enabled buses are only flagged, otherwise pins of unused bus(i.e. /dev/serial0) would silently disappear
+        boolean detect = StringUtils.isBlank(entity.getReservedBuses());
+        try {
+            buses = GpioBus.parse(entity.getReservedBuses());
+        } catch (IllegalArgumentException ex) {
+            log.warn("Wrong reserved buses '{}', only flag pins of enabled buses: {}", entity.getReservedBuses(), ex.getMessage());
+            detect = true;
+        }
+        Set<GpioPinEntity> pins = entity.getGpioPinEntities();
+        GpioPinIndex index = GpioPinIndex.build(pins, buses, detect ? GpioBus.detect() : Collections.emptySet(), !isMockPlatform(entity));
+        pinIndex = index;
+        Set<GpioPinEntity> valid = new HashSet<>();
+        for (GpioPinEntity gpioPin : pins) {
+            String issue = index.getIssue(gpioPin.getAddress());
+            if (index.isRejected(gpioPin.getAddress())) {
+                log.warn("Skip gpio pin {}: {}", gpioPin.getAddress(), issue);
+                removeState(gpioPin.getAddress());
+            } else {
+                if (issue != null) {
+                    log.warn("Gpio pin {}: {}", gpioPin.getAddress(), issue);
+                }
+                valid.add(gpioPin);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Pending deferred writes of replaced guards are not cancelled, they go through new guard
+     */
+    private void updateOutputGuards(Set<GpioPinEntity> gpioPinEntities) {
+        Map<String, GpioOutputGuard.Group> groups = new HashMap<>();
+        for (GpioPinEntity gpioPin : gpioPinEntities) {
+            GpioState gpioState = state.get(gpioPin.getAddress());
+            GpioOutputGuard guard = null;
+            if (gpioPin.getMode() == PinMode.DIGITAL_OUTPUT
+                && GpioOutputGuard.isRequired(gpioPin.getMaxToggleRate(), gpioPin.getMinOnTime(), gpioPin.getMinOffTime(),
+                gpioPin.getInterlockGroup())) {
+                GpioOutputGuard.Group group = StringUtils.isEmpty(gpioPin.getInterlockGroup()) ? null :
+                    groups.computeIfAbsent(gpioPin.getInterlockGroup(), key -> new GpioOutputGuard.Group());
+                guard = new GpioOutputGuard(gpioPin.getAddress(), gpioPin.getMaxToggleRate(), gpioPin.getMinOnTime(),
+                    gpioPin.getMinOffTime(), group, metrics);
+                guard.inherit(gpioState.getGuard(), gpioState.getLastState());
+            }
+            gpioState.setGuard(guard);
+            gpioState.setSafeState(gpioPin.getMode() == PinMode.DIGITAL_OUTPUT ? gpioPin.getSafeState().toState() : null);
+        }
+    }
+
+    private void updateSensors(Set<GpioPinEntity> gpioPinEntities) {
+        for (GpioPinEntity gpioPin : gpioPinEntities) {
+            GpioState gpioState = state.get(gpioPin.getAddress());
+            GpioBitBangSensor sensor = null;
+            try {
+                if (gpioPin.getMode() == PinMode.DHT22) {
+                    sensor = new Dht22Sensor(gpioPin.getAddress(), bitBangPin(gpioPin.getAddress()), metrics);
+                } else if (gpioPin.getMode() == PinMode.ULTRASONIC) {
+                    int echo = gpioPin.getEchoPin() == 0 ? gpioPin.getAddress() : gpioPin.getEchoPin();
+                    sensor = new UltrasonicSensor(gpioPin.getAddress(), bitBangPin(gpioPin.getAddress()), bitBangPin(echo), metrics);
+                }
+            } catch (Exception ex) {
+                log.error("Unable to create {} sensor on pin {}: {}", gpioPin.getMode(), gpioPin.getAddress(), ex.getMessage());
+            }
+            gpioState.setSensor(sensor);
+        }
+    }
+
+    private GpioBitBangPin bitBangPin(int address) throws IOException {
+        GpioMemRegisters source = backend.getRegisters();
+        if (source == null) {
+            if (GpioEntity.BOARD_TYPE.equals("UNKNOWN")) {
+                throw new IllegalStateException("Bit-banged sensors require gpio registers, use GPIOMEM provider");
+            }
+            source = localRegisters();
+        }
+        return source.bitBangPin(RaspberryGpioPin.getPin(address).getBcm());
+    }
+
+    private synchronized GpioMemRegisters localRegisters() throws IOException {
+        if (sensorRegisters == null) {
+            sensorRegisters = GpioMemRegisters.open(Paths.get(GpioMemRegisters.DEFAULT_PATH));
+        }
+        return sensorRegisters;
+    }
+
+    private void updateRules(GpioEntity entity) {
+        Set<Integer> inputs = new HashSet<>();
+        Set<Integer> outputs = new HashSet<>();
+        for (GpioState gpioState : state.values()) {
+            if (gpioState.getPinMode() == PinMode.DIGITAL_INPUT) {
+                inputs.add(gpioState.getGpioPin().getAddress());
+            } else if (gpioState.getPinMode() == PinMode.DIGITAL_OUTPUT) {
+                outputs.add(gpioState.getGpioPin().getAddress());
+            }
+        }
+        Map<Integer, GpioRuleTable> tables = GpioRuleTable.compile(entity.getRules(), inputs, outputs, ruleContext);
+        for (GpioState gpioState : state.values()) {
+            GpioRuleTable previous = gpioState.getRules();
+            gpioState.setRules(tables.get(gpioState.getGpioPin().getAddress()));
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+    }
+
+    /**
+     * Waiters registered by workflows survive detector recreation
+     */
+    private void updateGestures(Set<GpioPinEntity> gpioPinEntities) {
+        for (GpioPinEntity gpioPin : gpioPinEntities) {
+            GpioState gpioState = state.get(gpioPin.getAddress());
+            GpioGestureDetector previous = gpioState.getGestureDetector();
+            GpioGestureDetector detector = null;
+            if (gpioPin.isGestures() && gpioState.getPinMode() == PinMode.DIGITAL_INPUT) {
+                detector = new GpioGestureDetector(gpioPin.getAddress(), gpioState.getPull() != PullResistance.PULL_UP,
+                    entity.getDoubleClickTime(), entity.getLongPressTime(), entity.getHoldRepeatTime(), timerWheel, this::onGesture);
+                if (previous != null) {
+                    for (GpioGesture gesture : GpioGesture.values()) {
+                        detector.getWaiters().get(gesture).putAll(previous.getWaiters().get(gesture));
+                    }
+                }
+                GpioGestureDetector edgeDetector = detector;
+                gpioState.getListeners().put("rpi_gesture", state -> edgeDetector.onEdge(state.boolValue()));
+            } else {
+                gpioState.getListeners().remove("rpi_gesture");
+            }
+            gpioState.setGestureDetector(detector);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+    }
+
+    // runs on edge or timer thread
+    private void onGesture(int address, GpioGesture gesture) {
+        executor.execute(() -> setVariable(GpioEntrypoint.getGestureVariable(entity.getEntityID(), address), gesture.name()));
+    }
+
+    private GpioMatrix getLedMatrix(String name) {
+        GpioMatrix matrix = getMatrix(name);
+        if (matrix.getType() != GpioMatrix.Type.LED) {
+            throw new IllegalArgumentException("Gpio matrix '" + name + "' is not LED matrix");
+        }
+        return matrix;
+    }
+
+    private static void checkMatrixIndex(GpioMatrix matrix, int index, int count, String what) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException(what + " " + index + " is out of range of matrix " + matrix);
+        }
+    }
+
+    private void stopMatrices() {
+        matrixFutures.values().forEach(future -> future.cancel(false));
+        matrixFutures.clear();
+        for (GpioMatrix matrix : matrices.values()) {
+            if (matrix.getType() == GpioMatrix.Type.LED) {
+                matrixFrames.put(matrix.getName(), matrix.getFrame());
+            }
+            try {
+                matrix.clear();
+            } catch (Exception ex) {
+                log.warn("Unable to clear gpio matrix {}: {}", matrix, ex.getMessage());
+            }
+        }
+        matrices.clear();
+        state.values().forEach(gpioState -> gpioState.setClaimed(false));
+    }
+
+    private void startMatrices(GpioEntity entity) {
+        Set<Integer> claimed = new HashSet<>();
+        for (GpioMatrixDefinition definition : GpioMatrixDefinition.parse(entity.getMatrices())) {
+            try {
+                boolean keypad = definition.getType() == GpioMatrix.Type.KEYPAD;
+                GpioPort rows = matrixPort(definition.getRows(), PinMode.DIGITAL_OUTPUT, claimed, keypad);
+                GpioPort cols = matrixPort(definition.getCols(), keypad ? PinMode.DIGITAL_INPUT : PinMode.DIGITAL_OUTPUT, claimed, false);
+                int rowCount = definition.getRows().length;
+                // every key is sampled once per frame
+                int debounceScans = (int) Math.max(1, MATRIX_DEBOUNCE_MICROS / (MATRIX_TICK_MICROS * rowCount));
+                GpioMatrix matrix = new GpioMatrix(definition.getName(), definition.getType(), rows, rowCount, cols,
+                    definition.getCols().length, debounceScans, this::onMatrixKey);
+                if (!keypad && matrixFrames.containsKey(matrix.getName())) {
+                    matrix.setFrame(matrixFrames.get(matrix.getName()));
+                }
+                for (int address : definition.getRows()) {
+                    state.get(address).setClaimed(true);
+                }
+                for (int address : definition.getCols()) {
+                    state.get(address).setClaimed(true);
+                }
+                matrices.put(matrix.getName(), matrix);
+                matrixFutures.put(matrix.getName(),
+                    matrixExecutor.scheduleAtFixedRate(matrix, MATRIX_TICK_MICROS, MATRIX_TICK_MICROS, TimeUnit.MICROSECONDS));
+                log.info("Started gpio matrix {}", matrix);
+            } catch (Exception ex) {
+                log.error("Unable to start gpio matrix '{}': {}", definition.getName(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Memory mapped provider writes whole port with one GPSET/GPCLR pair, other providers go pin by pin
+     *
+     * @param drain - keypad rows, idle rows have to float. Needs registers, so local ones are used next to pigpio/gpiochip
+     */
+    private GpioPort matrixPort(int[] addresses, PinMode mode, Set<Integer> claimed, boolean drain) throws IOException {
+        Digital<?, ?, ?>[] pins = new Digital[addresses.length];
+        int[] bcm = new int[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            GpioState gpioState = state.get(addresses[i]);
+            if (gpioState == null || gpioState.getPinMode() != mode) {
+                throw new IllegalArgumentException("Pin " + addresses[i] + " must be configured as " + mode);
+            }
+            if (!claimed.add(addresses[i])) {
+                throw new IllegalArgumentException("Pin " + addresses[i] + " is used twice");
+            }
+            pins[i] = (Digital<?, ?, ?>) gpioState.getInstance();
+            bcm[i] = RaspberryGpioPin.getPin(addresses[i]).getBcm();
+        }
+        GpioMemRegisters registers = backend.getRegisters();
+        if (registers == null && drain) {
+            if ("RPI".equals(entity.getGpioProvider()) || "GPIOCHIP".equals(entity.getGpioProvider())) {
+                registers = localRegisters();
+            } else {
+                log.warn("Idle keypad rows {} are driven HIGH by {} provider, keys pressed in same column short rows",
+                    Arrays.toString(addresses), entity.getGpioProvider());
+            }
+        }
+        return registers == null ? new GpioInstancePort(pins) : registers.port(bcm);
+    }
+
+    // runs on matrix scan thread
+    private void onMatrixKey(GpioMatrix matrix, int row, int col, boolean pressed) {
+        if (pressed) {
+            String key = matrix.getKeyLabel(row, col);
+            executor.execute(() -> setVariable(GpioEntrypoint.getMatrixVariable(entity.getEntityID(), matrix.getName()), key));
+        }
+    }
+
+    private void updatePolling(GpioEntity entity) {
+        for (GpioState gpioState : state.values()) {
+            gpioState.getListeners().remove("rpi_poll_irq");
+        }
+        GpioState interruptState = state.get(entity.getPollInterruptPin());
+        if (interruptState != null && interruptState.getPinMode() == PinMode.DIGITAL_INPUT) {
+            interruptState.getListeners().put("rpi_poll_irq", state -> pollingScheduler.trigger());
+        }
+        pollingScheduler.update(state.values(), entity.getPollInterval(), entity.getPollMaxInterval());
+    }
+
+    /**
+     * Recorder listener is re-added on every update, so pins provisioned later and pins of switched provider are recorded too
+     */
+    private void updateRecorder(GpioEntity entity) {
+        long maxSize = entity.getRecordMaxSize() * 1024L * 1024L;
+        if (recorder != null && (!entity.isRecordEvents() || maxSize != recorderMaxSize)) {
+            closeRecorder();
+        }
+        if (entity.isRecordEvents() && recorder == null) {
+            try {
+                recorder = new GpioEventRecorder(snapshotDir.resolve(entity.getEntityID() + "-events"), maxSize);
+                recorderMaxSize = maxSize;
+                recorderFlushFuture = executor.scheduleWithFixedDelay(recorder::flush, RECORD_FLUSH_INTERVAL,
+                    RECORD_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (IOException ex) {
+                log.error("Unable to open gpio event log: {}", ex.getMessage());
+            }
+        }
+        GpioEventRecorder current = recorder;
+        for (GpioState gpioState : state.values()) {
+            if (current == null) {
+                gpioState.getListeners().remove("rpi_record");
+            } else {
+                int address = gpioState.getGpioPin().getAddress();
+                gpioState.getListeners().put("rpi_record", state -> current.record(address, state));
+            }
+        }
+    }
+
+    private void closeRecorder() {
+        if (recorder != null) {
+            recorderFlushFuture.cancel(false);
+            recorder.close();
+            recorder = null;
+        }
     }
 
     private synchronized void createOrUpdateState(@NotNull GpioPin gpioPin, @NotNull PinMode mode, @Nullable PullResistance pull) {
@@ -275,19 +1134,171 @@ public class GPIOService implements ServiceInstance<GpioEntity> {
         boolean changed = gpioState != null && (gpioState.getPinMode() != mode || gpioState.getPull() != pull);
         if (gpioState == null || changed) {
             if (changed) {
-                log.debug("Shutdown pin: <{}>" + gpioState.getGpioPin().getName());
-                gpioState.getInstance().shutdown(pi4j);
-                DefaultContext defaultContext = (DefaultContext) pi4j;
-                defaultContext.shutdown(gpioState.getInstance().id());
+                shutdownState(gpioState, backend.getPi4j());
             }
-            gpioState = new GpioState(log, gpioPin, mode, pull);
+            state.put(gpioPin.getAddress(), provisionState(backend.getPi4j(), gpioPin, mode, pull));
+            configVersion.incrementAndGet();
+        }
+    }
+
+    private GpioState provisionState(Context pi4j, @NotNull GpioPin gpioPin, @NotNull PinMode mode, @Nullable PullResistance pull) {
+        GpioState gpioState = new GpioState(log, gpioPin, mode, pull);
+        gpioState.setMetrics(metrics);
+        gpioState.setTracer(tracer);
+        State restored = restoreState(gpioState);
+        long start = System.nanoTime();
+        // bit-banged sensors are created by updateSensors, they need no pi4j instance
+        if (!mode.isBitBang()) {
             mode.getGpioModeFactory().createGpioState(pi4j, gpioState, entity.getGpioProviderModel());
-            log.info("Created gpio interface: {}", gpioState);
-            state.put(gpioPin.getAddress(), gpioState);
-            // add global listener to link to variable
-            gpioState.getListeners().put("rpi_global", state -> {
-                entityContext.var().set("rpi_" + entity.getEntityID() + "_" + gpioPin.getAddress(), state);
+        }
+        metrics.timer(GpioMetrics.PIN_PROVISION).recordSince(start);
+        log.info("Created gpio interface: {}", gpioState);
+        // add global listener to link to variable
+        gpioState.getListeners().put("rpi_global", state -> setVariable(gpioPin.getAddress(), state));
+        gpioState.getListeners().put("rpi_stream", state -> pinStream.publish(gpioPin.getAddress(), state));
+        if (snapshot != null) {
+            gpioState.getListeners().put("rpi_snapshot", state -> snapshot.write(gpioPin.getAddress(), mode, state));
+        }
+        if (restored != null && mode == PinMode.DIGITAL_INPUT) {
+            // input may have changed while service was down
+            executor.execute(() -> reconcileState(gpioState));
+        }
+        return gpioState;
+    }
+
+    private synchronized void removeState(int address) {
+        GpioState gpioState = state.remove(address);
+        if (gpioState != null) {
+            cancelTimedCommand(address);
+            if (gpioState.getRules() != null) {
+                gpioState.getRules().cancel();
+            }
+            if (gpioState.getGestureDetector() != null) {
+                gpioState.getGestureDetector().cancel();
+            }
+            shutdownState(gpioState, backend.getPi4j());
+            configVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Release pins in parallel, then shutdown pi4j context and resources of its providers. Pins which didn't finish within timeout
+     * are reported and left to context shutdown
+     *
+     * @param safeStates - drive outputs to safe states first. Not used on provider switch, pins are already owned by new context
+     */
+    private void shutdownContext(Collection<GpioState> states, GpioBackend backend, boolean safeStates) {
+        long start = System.nanoTime();
+        Context pi4j = backend.getPi4j();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (GpioState gpioState : states) {
+            gpioState.getListeners().clear();
+            // no edges are published while pins go down
+            gpioState.setClaimed(true);
+            tasks.add(() -> {
+                releaseState(gpioState, pi4j, safeStates);
+                return null;
             });
         }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(tasks.size(), SHUTDOWN_THREADS)), runnable -> {
+            Thread thread = new Thread(runnable, "gpio-shutdown-" + entity.getEntityID());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int timedOut = 0;
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks, SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (future.isCancelled()) {
+                    timedOut++;
+                }
+            }
+            pool.submit((Callable<Context>) pi4j::shutdown).get(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.warn("Unable to shutdown pi4j context: {}", ex.getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+        // providers back pin instances, so they are closed after context
+        backend.close();
+        log.info("Gpio context {} of {} shut down in {}ms. Released pins: {}, timed out: {}", backend.getKey(), entity.getEntityID(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), tasks.size() - timedOut, timedOut);
+    }
+
+    private void releaseState(GpioState gpioState, Context pi4j, boolean safeStates) {
+        try {
+            State safeState = gpioState.getSafeState();
+            if (safeStates && safeState != null && gpioState.getInstance() != null) {
+                gpioState.getPinMode().getGpioModeFactory().setState(gpioState.getInstance(), safeState);
+            }
+            shutdownState(gpioState, pi4j);
+        } catch (Exception ex) {
+            log.warn("Unable to release pin {}: {}", gpioState.getGpioPin().getName(), ex.getMessage());
+        }
+    }
+
+    private void shutdownState(GpioState gpioState, Context pi4j) {
+        log.debug("Shutdown pin: <{}>", gpioState.getGpioPin().getName());
+        if (gpioState.getInstance() != null) {
+            gpioState.getInstance().shutdown(pi4j);
+            DefaultContext defaultContext = (DefaultContext) pi4j;
+            defaultContext.shutdown(gpioState.getInstance().id());
+        }
+    }
+
+    /**
+     * Seed lastState from snapshot before provisioning, so output factories create pins with restored level
+     */
+    private @Nullable State restoreState(GpioState gpioState) {
+        if (snapshot == null) {
+            return null;
+        }
+        int address = gpioState.getGpioPin().getAddress();
+        State restored = snapshot.read(address, gpioState.getPinMode());
+        if (restored == null) {
+            snapshot.reset(address, gpioState.getPinMode());
+        } else {
+            gpioState.setLastState(restored);
+        }
+        return restored;
+    }
+
+    private void reconcileState(GpioState gpioState) {
+        try {
+            State actual = gpioState.getPinMode().getGpioModeFactory().getState(gpioState.getInstance());
+            if (actual != null && !Objects.equals(actual, gpioState.getLastState())) {
+                gpioState.updateState(actual);
+            }
+        } catch (Exception ex) {
+            log.warn("Unable to read state of pin: {}. {}", gpioState.getGpioPin().getName(), ex.getMessage());
+        }
+    }
+
+    private class ServiceRuleContext implements GpioRuleContext {
+
+        @Override
+        public void write(int address, State state) {
+            // runs inside input edge callback, only variable publish may block
+            if (GPIOService.this.write(address, state)) {
+                executor.execute(() -> setVariable(address, state));
+            }
+        }
+
+        @Override
+        public void writeAsync(int address, GpioRule.Action action, State input) {
+            executor.execute(() -> setValue(address, action.apply(input, ruleContext.getLastState(address))));
+        }
+
+        @Override
+        public State getLastState(int address) {
+            GpioState gpioState = state.get(address);
+            return gpioState == null ? null : gpioState.getLastState();
+        }
+
+        @Override
+        public GpioTimerWheel getTimerWheel() {
+            return timerWheel;
+        }
     }
 }
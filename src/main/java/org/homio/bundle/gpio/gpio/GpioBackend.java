@@ -0,0 +1,118 @@
+package org.homio.bundle.gpio.gpio;
+
+import com.pi4j.Pi4J;
+import com.pi4j.context.Context;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipDigitalOutputProvider;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipLines;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemDigitalOutputProvider;
+import org.homio.bundle.gpio.gpio.gpiomem.GpioMemRegisters;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+import org.homio.bundle.gpio.gpio.remote.GpioRemoteClient;
+import org.homio.bundle.gpio.gpio.remote.RemoteDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.remote.RemoteDigitalOutputProvider;
+import org.homio.bundle.gpio.gpio.simulation.GpioSimAnalogInputProvider;
+import org.homio.bundle.gpio.gpio.simulation.GpioSimDigitalInputProvider;
+import org.homio.bundle.gpio.gpio.simulation.GpioSimulator;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Pi4J context of selected gpio provider together with resources its providers are built on. Context itself is shut down by
+ * owner, close() releases only provider resources
+ */
+@Log4j2
+@Getter
+public class GpioBackend implements Closeable {
+
+    private final String key;
+    private final Context pi4j;
+    private @Nullable GpioMemRegisters registers;
+    private @Nullable GpioChipLines chipLines;
+    private @Nullable GpioRemoteClient remoteClient;
+    private @Nullable GpioSimulator simulator;
+
+    private GpioBackend(GpioEntity entity, GpioMetrics metrics) throws IOException {
+        this.key = getKey(entity);
+        try {
+            this.pi4j = createContext(entity, metrics);
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    public static GpioBackend create(GpioEntity entity, GpioMetrics metrics) throws IOException {
+        return new GpioBackend(entity, metrics);
+    }
+
+    /**
+     * @return provider with its settings. Backend has to be recreated once key changed
+     */
+    public static String getKey(GpioEntity entity) {
+        switch (entity.getGpioProvider()) {
+            case "GPIOMEM":
+                return "GPIOMEM:" + entity.getRegisterPath();
+            case "GPIOCHIP":
+                return "GPIOCHIP:" + entity.getGpioChip();
+            case "REMOTE":
+                return "REMOTE:" + entity.getRemoteAddress();
+            case "SIMULATION":
+                return "SIMULATION:" + entity.getSimulation();
+            default:
+                return entity.getGpioProvider();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (simulator != null) {
+            simulator.close();
+        }
+        if (remoteClient != null) {
+            remoteClient.close();
+        }
+        if (chipLines != null) {
+            chipLines.close();
+        }
+        if (registers != null) {
+            try {
+                registers.close();
+            } catch (IOException ex) {
+                log.warn("Unable to close gpio registers: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private Context createContext(GpioEntity entity, GpioMetrics metrics) throws IOException {
+        if ("GPIOMEM".equals(entity.getGpioProvider())) {
+            registers = GpioMemRegisters.open(Paths.get(entity.getRegisterPath()));
+            return GPIOService.createMockContext(new GpioMemDigitalInputProvider(registers), new GpioMemDigitalOutputProvider(registers));
+        }
+        if ("GPIOCHIP".equals(entity.getGpioProvider())) {
+            chipLines = new GpioChipLines(entity.getGpioChip(), null);
+            return GPIOService.createMockContext(new GpioChipDigitalInputProvider(chipLines),
+                new GpioChipDigitalOutputProvider(chipLines));
+        }
+        if ("REMOTE".equals(entity.getGpioProvider())) {
+            remoteClient = GpioRemoteClient.create(entity.getRemoteAddress(), metrics.timer(GpioMetrics.REMOTE_RTT));
+            return GPIOService.createMockContext(new RemoteDigitalInputProvider(remoteClient),
+                new RemoteDigitalOutputProvider(remoteClient));
+        }
+        if ("SIMULATION".equals(entity.getGpioProvider())) {
+            simulator = new GpioSimulator(entity.getEntityID(), entity.getSimulation(), metrics);
+            return GPIOService.createMockContext(new GpioSimDigitalInputProvider(simulator), new GpioSimAnalogInputProvider(simulator));
+        }
+        if ("MOCK".equals(entity.getGpioProvider()) || GpioEntity.BOARD_TYPE.equals("UNKNOWN")) {
+            return GPIOService.createMockContext();
+        }
+        // auto discovery
+        return Pi4J.newAutoContext();
+    }
+}
@@ -0,0 +1,56 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Hardware buses which own header pins once enabled in config.txt. Such pins must not be provisioned as plain gpio
+ */
+@Getter
+public enum GpioBus {
+    I2C("/dev/i2c-1", 3, 5),
+    SPI("/dev/spidev0.0", 19, 21, 23),
+    UART("/dev/serial0", 8, 10);
+
+    private final String device;
+    private final int[] pins;
+
+    GpioBus(String device, int... pins) {
+        this.device = device;
+        this.pins = pins;
+    }
+
+    /**
+     * @param value - comma separated bus names, 'NONE' or empty - no buses
+     */
+    public static Set<GpioBus> parse(String value) {
+        Set<GpioBus> buses = EnumSet.noneOf(GpioBus.class);
+        if (StringUtils.isNotBlank(value)) {
+            for (String name : StringUtils.split(value.toUpperCase(), ", ")) {
+                if (!"NONE".equals(name)) {
+                    buses.add(GpioBus.valueOf(name));
+                }
+            }
+        }
+        return buses;
+    }
+
+    /**
+     * Device node only tells that bus is enabled, not that something is wired to it(i.e. /dev/serial0 of stock Pi OS)
+     *
+     * @return buses which have device node
+     */
+    public static Set<GpioBus> detect() {
+        Set<GpioBus> buses = EnumSet.noneOf(GpioBus.class);
+        for (GpioBus bus : values()) {
+            if (Files.exists(Paths.get(bus.device))) {
+                buses.add(bus);
+            }
+        }
+        return buses;
+    }
+}
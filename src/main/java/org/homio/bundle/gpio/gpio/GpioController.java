@@ -3,17 +3,30 @@ package org.homio.bundle.gpio.gpio;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.homio.bundle.api.EntityContext;
 import org.homio.bundle.api.entity.BaseEntity;
 import org.homio.bundle.api.model.OptionModel;
 import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.gpio.GpioFleetService.BoardResult;
+import org.homio.bundle.gpio.gpio.GpioFleetService.PinSnapshot;
+import org.homio.bundle.gpio.gpio.matrix.GpioMatrix;
+import org.homio.bundle.gpio.gpio.metrics.GpioEdgeTracer;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetric;
 import org.homio.bundle.gpio.gpio.mode.PinMode;
 
 @RestController
@@ -21,31 +34,118 @@ import org.homio.bundle.gpio.gpio.mode.PinMode;
 @RequestMapping("/rest/gpio")
 public class GpioController {
 
+    private static final long FLEET_TIMEOUT = 2000;
+
     private final EntityContext entityContext;
+    private final GpioFleetService fleetService;
 
     @GetMapping("/device/DS18B20")
-    public List<BaseEntity> getRaspberryDS18B20() {
-        List<BaseEntity> list = new ArrayList<>();
-        List<GpioEntity> entities = entityContext.findAll(GpioEntity.class);
-        for (GpioEntity entity : entities) {
-            list.addAll(entity.getService().getDS18B20()
-                              .stream().map(s -> BaseEntity.fakeEntity(s).setName(s)).collect(Collectors.toList()));
+    public ResponseEntity<List<BaseEntity>> getRaspberryDS18B20(
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<String> sensors = new ArrayList<>();
+        for (BoardResult<List<String>> result : fleetService.getDS18B20(FLEET_TIMEOUT)) {
+            if (result.getValue() != null) {
+                sensors.addAll(result.getValue());
+            }
+        }
+        String eTag = "\"" + Integer.toHexString(sensors.hashCode()) + "\"";
+        if (eTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(sensors.stream().map(s -> BaseEntity.fakeEntity(s).setName(s)).collect(Collectors.toList()));
+    }
+
+    @GetMapping("/fleet/DS18B20")
+    public List<BoardResult<List<String>>> getFleetDS18B20(@RequestParam(value = "timeout", defaultValue = "" + FLEET_TIMEOUT) long timeout) {
+        return fleetService.getDS18B20(timeout);
+    }
+
+    @GetMapping("/fleet/pins")
+    public List<BoardResult<List<PinSnapshot>>> getFleetPins(@RequestParam(value = "timeout", defaultValue = "" + FLEET_TIMEOUT) long timeout) {
+        return fleetService.getPins(timeout);
+    }
+
+    @GetMapping("/metrics")
+    public List<GpioMetric> getMetrics(@RequestParam("entityID") String entityID) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(entityID);
+        return gpioEntity.getService().getMetrics().snapshot();
+    }
+
+    @GetMapping("/trace")
+    public GpioEdgeTracer.Dump getTrace(@RequestParam("entityID") String entityID) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(entityID);
+        return gpioEntity.getService().getTracer().dump();
+    }
+
+    /**
+     * Stream pin changes of entity as server-sent events. Reconnected client receives missed events from in-memory history by
+     * 'Last-Event-ID' header
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam("entityID") String entityID,
+        @RequestParam(value = "pins", required = false) Set<Integer> pins,
+        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventID) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(entityID);
+        return gpioEntity.getService().streamEvents(pins == null ? Set.of() : pins, lastEventID);
+    }
+
+    @GetMapping("/matrix")
+    public List<OptionModel> getLedMatrices(@RequestParam("rpiIdMenu") String rpiIdMenu) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(rpiIdMenu);
+        return gpioEntity.getService().getMatrixOptions(GpioMatrix.Type.LED);
+    }
+
+    /**
+     * @return LED frame buffer or pressed keys of keypad, bit i of row - column i
+     */
+    @GetMapping("/matrix/{name}")
+    public int[] getMatrix(@PathVariable("name") String name, @RequestParam("entityID") String entityID) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(entityID);
+        GpioMatrix matrix = gpioEntity.getService().getMatrix(name);
+        if (matrix.getType() == GpioMatrix.Type.LED) {
+            return matrix.getFrame();
+        }
+        int[] rows = new int[matrix.getRowCount()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = matrix.getRow(i);
         }
-        return list;
+        return rows;
+    }
+
+    @PostMapping("/matrix/{name}/row/{row}")
+    public void setMatrixRow(@PathVariable("name") String name, @PathVariable("row") int row, @RequestParam("entityID") String entityID,
+        @RequestParam("bits") int bits) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(entityID);
+        gpioEntity.getService().setMatrixRow(name, row, bits);
+    }
+
+    @PostMapping("/matrix/{name}/pixel/{row}/{col}")
+    public void setMatrixPixel(@PathVariable("name") String name, @PathVariable("row") int row, @PathVariable("col") int col,
+        @RequestParam("entityID") String entityID, @RequestParam("on") boolean on) {
+        GpioEntity gpioEntity = entityContext.getEntityRequire(entityID);
+        gpioEntity.getService().setMatrixPixel(name, row, col, on);
     }
 
     @GetMapping("/pin/{mode}")
-    public List<OptionModel> getPins(@PathVariable("mode") Mode mode, @RequestParam("rpiIdMenu") String rpiIdMenu) {
+    public ResponseEntity<List<OptionModel>> getPins(@PathVariable("mode") Mode mode, @RequestParam("rpiIdMenu") String rpiIdMenu,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         GpioEntity gpioEntity = entityContext.getEntityRequire(rpiIdMenu);
-        Map<Integer, GpioState> stateMap = gpioEntity.getService().getState();
+        GPIOService service = gpioEntity.getService();
+        String eTag = "\"" + service.getPinOptionsETag() + "-" + mode + "\"";
+        if (eTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(service.getPinOptions(mode));
+    }
 
+    static List<OptionModel> getPins(Map<Integer, GpioState> stateMap, Mode mode) {
         return stateMap.values().stream()
                        .filter(mode::accept).map(gpioState ->
                 OptionModel.of(String.valueOf(gpioState.getGpioPin().getAddress()),
                     fixNum(gpioState.getGpioPin().getAddress()) + "/" + gpioState.getGpioPin().getName())).collect(Collectors.toList());
     }
 
-    private String fixNum(int address) {
+    private static String fixNum(int address) {
         return address < 9 ? "0" + address : String.valueOf(address);
     }
 
@@ -56,7 +156,9 @@ public class GpioController {
         digitalOutput(PinMode.DIGITAL_OUTPUT),
         analogInput(PinMode.ANALOG_INPUT),
         analogOutput(PinMode.ANALOG_OUTPUT),
-        pwm(PinMode.PWM);
+        pwm(PinMode.PWM),
+        dht22(PinMode.DHT22),
+        ultrasonic(PinMode.ULTRASONIC);
 
         private final PinMode[] modes;
 
@@ -0,0 +1,123 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.api.EntityContext;
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Query all gpio boards in parallel. Slow or failed board doesn't block others - it's reported with TIMEOUT/ERROR status after
+ * per board timeout. Even cached reads go through pool: cold DS18B20 cache reads sysfs and getService() may create service.
+ */
+@Log4j2
+@Component
+public class GpioFleetService implements DisposableBean {
+
+    private final EntityContext entityContext;
+    private final ExecutorService executor;
+
+    public GpioFleetService(EntityContext entityContext) {
+        this.entityContext = entityContext;
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors() * 2));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "gpio-fleet");
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    public <T> List<BoardResult<T>> query(Function<GPIOService, T> query, long timeoutMillis) {
+        List<GpioEntity> entities = entityContext.findAll(GpioEntity.class);
+        List<Future<T>> futures = new ArrayList<>(entities.size());
+        for (GpioEntity entity : entities) {
+            futures.add(executor.submit(() -> query.apply(entity.getService())));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<BoardResult<T>> results = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            GpioEntity entity = entities.get(i);
+            Future<T> future = futures.get(i);
+            BoardResult<T> result = new BoardResult<>(entity.getEntityID(), entity.getTitle());
+            try {
+                result.value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                result.status = Status.OK;
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                result.status = Status.TIMEOUT;
+                log.warn("Gpio board <{}> not responded in {}ms", entity.getTitle(), timeoutMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                result.status = Status.ERROR;
+                result.error = "Interrupted";
+            } catch (ExecutionException ex) {
+                result.status = Status.ERROR;
+                result.error = ex.getCause() == null ? ex.getMessage() : ex.getCause().getMessage();
+                log.warn("Gpio board <{}> query failed: {}", entity.getTitle(), result.error);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    public List<BoardResult<List<String>>> getDS18B20(long timeoutMillis) {
+        return query(GPIOService::getCachedDS18B20, timeoutMillis);
+    }
+
+    public List<BoardResult<List<PinSnapshot>>> getPins(long timeoutMillis) {
+        return query(service -> service.getState().values().stream().sorted(Comparator.comparing(GpioState::getGpioPin))
+                                       .map(gpioState -> new PinSnapshot(gpioState.getGpioPin().getAddress(),
+                                           gpioState.getGpioPin().getName(), gpioState.getPinMode(), gpioState.getLastState()))
+                                       .collect(Collectors.toList()), timeoutMillis);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public enum Status {
+        OK, TIMEOUT, ERROR
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class BoardResult<T> {
+
+        private final String entityID;
+        private final String title;
+        private Status status;
+        private String error;
+        private T value;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class PinSnapshot {
+
+        private final int address;
+        private final String name;
+        private final PinMode mode;
+        private final State state;
+    }
+}
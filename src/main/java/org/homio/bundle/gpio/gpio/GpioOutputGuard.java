@@ -0,0 +1,162 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.Nullable;
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+
+/**
+ * Write path policy of digital output: max toggle rate, minimum on/off time and mutual exclusion group.
+ * All checks are CAS based, no locks on setValue path
+ */
+public class GpioOutputGuard {
+
+    public static final long ALLOW = 0;
+    public static final long REJECT = -1;
+
+    private final int address;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final long minOnNanos;
+    private final long minOffNanos;
+    private final @Nullable Group group;
+    private final GpioMetrics.Counter rejected;
+    private final GpioMetrics.Counter deferred;
+
+    // theoretical arrival time of next toggle(GCRA)
+    private final AtomicLong nextToggle = new AtomicLong();
+    // 'long ago', so first write after start isn't held
+    private final AtomicLong lastChange = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+    private final AtomicReference<State> pending = new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> pendingFuture = new AtomicReference<>();
+
+    /**
+     * @param maxToggleRate - toggles per second, 0 - unlimited. Same value used as burst size
+     */
+    public GpioOutputGuard(int address, int maxToggleRate, int minOnMillis, int minOffMillis, @Nullable Group group, GpioMetrics metrics) {
+        this.address = address;
+        this.emissionInterval = maxToggleRate <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxToggleRate;
+        this.burstTolerance = emissionInterval * Math.max(0, maxToggleRate - 1);
+        this.minOnNanos = TimeUnit.MILLISECONDS.toNanos(minOnMillis);
+        this.minOffNanos = TimeUnit.MILLISECONDS.toNanos(minOffMillis);
+        this.group = group;
+        this.rejected = metrics.counter(String.format(GpioMetrics.PIN_REJECTED, address));
+        this.deferred = metrics.counter(String.format(GpioMetrics.PIN_DEFERRED, address));
+    }
+
+    public static boolean isRequired(int maxToggleRate, int minOnMillis, int minOffMillis, @Nullable String group) {
+        return maxToggleRate > 0 || minOnMillis > 0 || minOffMillis > 0 || (group != null && !group.isEmpty());
+    }
+
+    /**
+     * @return ALLOW, REJECT or nanos to wait until minimum on/off time of current level passed
+     */
+    public long check(@Nullable State current, State requested) {
+        long now = System.nanoTime();
+        if (current != null) {
+            long hold = current.boolValue() ? minOnNanos : minOffNanos;
+            long wait = lastChange.get() + hold - now;
+            if (wait > 0) {
+                deferred.increment();
+                return wait;
+            }
+        }
+        if (group != null && requested.boolValue() && !group.acquire(address)) {
+            rejected.increment();
+            return REJECT;
+        }
+        if (emissionInterval > 0 && !tryToggle(now)) {
+            if (group != null && requested.boolValue()) {
+                group.release(address);
+            }
+            rejected.increment();
+            return REJECT;
+        }
+        return ALLOW;
+    }
+
+    /**
+     * Must be called after state was written to hardware
+     */
+    public void onWritten(State state) {
+        lastChange.set(System.nanoTime());
+        if (group != null) {
+            if (state.boolValue()) {
+                group.acquire(address);
+            } else {
+                group.release(address);
+            }
+        }
+    }
+
+    /**
+     * Carry over hold timer and rate bucket of guard replaced on settings update and restore group membership of current level
+     */
+    public void inherit(@Nullable GpioOutputGuard previous, @Nullable State current) {
+        if (previous != null) {
+            lastChange.set(previous.lastChange.get());
+            nextToggle.set(previous.nextToggle.get());
+        }
+        if (group != null && current != null && current.boolValue()) {
+            group.acquire(address);
+        }
+    }
+
+    /**
+     * Schedule write once minimum on/off time passed. Latest deferred state wins
+     */
+    public void defer(State state, long delayNanos, ScheduledExecutorService executor, Consumer<State> writer) {
+        if (pending.getAndSet(state) == null) {
+            pendingFuture.set(executor.schedule(() -> {
+                pendingFuture.set(null);
+                State value = pending.getAndSet(null);
+                if (value != null) {
+                    writer.accept(value);
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    public void cancelPending() {
+        pending.set(null);
+        ScheduledFuture<?> future = pendingFuture.getAndSet(null);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private boolean tryToggle(long now) {
+        while (true) {
+            long tat = nextToggle.get();
+            long base = tat == 0 ? now : Math.max(tat, now);
+            if (tat != 0 && now < tat - burstTolerance) {
+                return false;
+            }
+            if (nextToggle.compareAndSet(tat, base + emissionInterval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Mutual exclusion group. At most one member may be ON
+     */
+    public static class Group {
+
+        private final AtomicInteger owner = new AtomicInteger(-1);
+
+        boolean acquire(int address) {
+            return owner.compareAndSet(-1, address) || owner.get() == address;
+        }
+
+        void release(int address) {
+            owner.compareAndSet(address, -1);
+        }
+    }
+}
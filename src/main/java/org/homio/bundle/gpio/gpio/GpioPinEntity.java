@@ -71,7 +71,7 @@ public class GpioPinEntity extends PinBaseEntity<GpioPinEntity, GpioEntity> {
             GpioEntity entity = getOwnerTarget();
             if (entity != null) {
                 return entity.optService().map(service -> {
-                    State state = service.getState(getAddress());
+                    State state = service.getLastState(getAddress());
                     return state == null ? null : state.stringValue();
                 }).orElse(null);
             }
@@ -79,6 +79,16 @@ public class GpioPinEntity extends PinBaseEntity<GpioPinEntity, GpioEntity> {
         return null;
     }
 
+    /**
+     * @return mode/bus conflict found by last validation pass, null if pin is fine
+     */
+    @UIField(order = 55, hideInEdit = true)
+    @UIFieldInlineEntityWidth(20)
+    public String getIssue() {
+        GpioEntity entity = getOwnerTarget();
+        return entity == null ? null : entity.optService().map(service -> service.getPinIndex().getIssue(getAddress())).orElse(null);
+    }
+
     @UIField(order = 60, hideInView = true)
     @UIFieldColorPicker
     @UIFieldInlineEntityEditWidth(25)
@@ -90,6 +100,79 @@ public class GpioPinEntity extends PinBaseEntity<GpioPinEntity, GpioEntity> {
         setJsonData("clr", value);
     }
 
+    @UIField(order = 65, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'DIGITAL_INPUT'")
+    public boolean isGestures() {
+        return getJsonData("gst", false);
+    }
+
+    public void setGestures(boolean value) {
+        setJsonData("gst", value);
+    }
+
+    @UIField(order = 70, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'DIGITAL_OUTPUT'")
+    public int getMaxToggleRate() {
+        return getJsonData("mtr", 0);
+    }
+
+    public void setMaxToggleRate(int value) {
+        setJsonData("mtr", value);
+    }
+
+    @UIField(order = 71, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'DIGITAL_OUTPUT'")
+    public int getMinOnTime() {
+        return getJsonData("mon", 0);
+    }
+
+    public void setMinOnTime(int value) {
+        setJsonData("mon", value);
+    }
+
+    @UIField(order = 72, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'DIGITAL_OUTPUT'")
+    public int getMinOffTime() {
+        return getJsonData("moff", 0);
+    }
+
+    public void setMinOffTime(int value) {
+        setJsonData("moff", value);
+    }
+
+    @UIField(order = 73, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'DIGITAL_OUTPUT'")
+    public String getInterlockGroup() {
+        return getJsonData("ilg", "");
+    }
+
+    public void setInterlockGroup(String value) {
+        setJsonData("ilg", value);
+    }
+
+    /**
+     * @return echo pin address of HC-SR04, 0 - echo wired to same pin as trigger
+     */
+    @UIField(order = 74, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'ULTRASONIC'")
+    public int getEchoPin() {
+        return getJsonData("echo", 0);
+    }
+
+    public void setEchoPin(int value) {
+        setJsonData("echo", value);
+    }
+
+    @UIField(order = 75, hideInView = true)
+    @UIFieldDisableEditOnCondition("return context.get('mode') != 'DIGITAL_OUTPUT'")
+    public GpioSafeState getSafeState() {
+        return getJsonDataEnum("safe", GpioSafeState.KEEP);
+    }
+
+    public void setSafeState(GpioSafeState value) {
+        setJsonDataEnum("safe", value);
+    }
+
     @Override
     @UIFieldIgnore
     public String getDescription() {
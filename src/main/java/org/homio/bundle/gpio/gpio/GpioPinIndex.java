@@ -0,0 +1,94 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.util.Collection;
+import java.util.Set;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Validation result of all pins of gpio entity. Built once per entity update before anything is provisioned, lookups are single
+ * bit/array access so UI may query it for every rendered pin row
+ */
+public class GpioPinIndex {
+
+    public static final GpioPinIndex EMPTY = new GpioPinIndex();
+
+    private static final int MAX_ADDRESS = 40;
+
+    // bit per header pin
+    private long reserved;
+    private long rejected;
+    private final String[] issues = new String[MAX_ADDRESS + 1];
+
+    private GpioPinIndex() {
+    }
+
+    /**
+     * @param buses - buses reserved by user, their pins are rejected
+     * @param detectedBuses - enabled buses, their pins are only flagged
+     * @param checkModes - false for mock platform which emulates any mode on any pin
+     */
+    public static GpioPinIndex build(Collection<GpioPinEntity> pins, Set<GpioBus> buses, Set<GpioBus> detectedBuses,
+        boolean checkModes) {
+        GpioPinIndex index = new GpioPinIndex();
+        for (GpioBus bus : buses) {
+            for (int address : bus.getPins()) {
+                index.reserved |= 1L << address;
+                index.reject(address, "Reserved by " + bus + " bus");
+            }
+        }
+        for (GpioBus bus : detectedBuses) {
+            for (int address : bus.getPins()) {
+                index.flag(address, bus + " bus is enabled(" + bus.getDevice() + "), pin may conflict with it");
+            }
+        }
+        PinMode[] modes = new PinMode[MAX_ADDRESS + 1];
+        for (GpioPinEntity pin : pins) {
+            int address = pin.getAddress();
+            modes[address] = pin.getMode();
+            if (checkModes && !pin.getGpioPin().getSupportModes().contains(pin.getMode())) {
+                index.reject(address, "Mode " + pin.getMode() + " is not supported");
+            }
+        }
+        for (GpioPinEntity pin : pins) {
+            int echo = pin.getEchoPin();
+            if (pin.getMode() == PinMode.ULTRASONIC && echo != 0 && echo != pin.getAddress()) {
+                if (echo < 0 || echo > MAX_ADDRESS || modes[echo] == null) {
+                    index.flag(pin.getAddress(), "Echo pin " + echo + " doesn't exist");
+                } else if (index.isReserved(echo) || modes[echo] != PinMode.DIGITAL_INPUT) {
+                    index.flag(pin.getAddress(), "Echo pin " + echo + " must be free digital input");
+                }
+            }
+        }
+        return index;
+    }
+
+    public boolean isReserved(int address) {
+        return (reserved & (1L << address)) != 0;
+    }
+
+    /**
+     * @return true if pin must not be provisioned
+     */
+    public boolean isRejected(int address) {
+        return (rejected & (1L << address)) != 0;
+    }
+
+    /**
+     * @return first detected problem of pin or null
+     */
+    public @Nullable String getIssue(int address) {
+        return address < 0 || address > MAX_ADDRESS ? null : issues[address];
+    }
+
+    private void reject(int address, String issue) {
+        rejected |= 1L << address;
+        flag(address, issue);
+    }
+
+    private void flag(int address, String issue) {
+        if (issues[address] == null) {
+            issues[address] = issue;
+        }
+    }
+}
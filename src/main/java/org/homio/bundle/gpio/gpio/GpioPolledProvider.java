@@ -0,0 +1,8 @@
+package org.homio.bundle.gpio.gpio;
+
+/**
+ * Marker of pi4j provider which doesn't fire change events. Pins created by such provider are read by GpioPollingScheduler
+ */
+public interface GpioPolledProvider {
+
+}
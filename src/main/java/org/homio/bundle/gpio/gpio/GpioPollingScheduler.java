@@ -0,0 +1,124 @@
+package org.homio.bundle.gpio.gpio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.api.state.State;
+
+/**
+ * Detect changes of pins which provider doesn't fire events for (analog inputs, expanders). Pins are grouped per provider(bus) and
+ * read together. Poll interval grows twice on every idle pass up to maxInterval and drops back to minInterval as soon as any
+ * pin in group changed or shared interrupt line was triggered.
+ */
+@Log4j2
+public class GpioPollingScheduler {
+
+    private final Map<String, PollGroup> groups = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private volatile long minInterval = 100;
+    private volatile long maxInterval = 5000;
+
+    public GpioPollingScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public synchronized void update(Collection<GpioState> states, long minInterval, long maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+        Map<String, List<GpioState>> pollStates = new HashMap<>();
+        for (GpioState gpioState : states) {
+            if (gpioState.getPinMode().getGpioModeFactory() != null && gpioState.getInstance() != null && !gpioState.isClaimed()
+                && (gpioState.getPinMode().getGpioModeFactory().isPollRequired() || gpioState.getInstance().provider() instanceof GpioPolledProvider)) {
+                pollStates.computeIfAbsent(gpioState.getInstance().provider().id(), bus -> new ArrayList<>()).add(gpioState);
+            }
+        }
+        groups.keySet().removeIf(bus -> {
+            if (!pollStates.containsKey(bus)) {
+                groups.get(bus).cancel();
+                return true;
+            }
+            return false;
+        });
+        for (Map.Entry<String, List<GpioState>> entry : pollStates.entrySet()) {
+            PollGroup group = groups.computeIfAbsent(entry.getKey(), PollGroup::new);
+            group.states = entry.getValue();
+            group.interval = this.minInterval;
+            group.schedule(0);
+        }
+        log.info("Gpio polling groups: {}", groups.values());
+    }
+
+    /**
+     * Called from shared interrupt line. Reads all groups immediately
+     */
+    public void trigger() {
+        for (PollGroup group : groups.values()) {
+            group.interval = minInterval;
+            group.schedule(0);
+        }
+    }
+
+    public synchronized void shutdown() {
+        groups.values().forEach(PollGroup::cancel);
+        groups.clear();
+    }
+
+    @RequiredArgsConstructor
+    private class PollGroup {
+
+        @Getter
+        private final String bus;
+        private volatile List<GpioState> states = List.of();
+        private volatile long interval;
+        private ScheduledFuture<?> future;
+
+        private synchronized void schedule(long delay) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (future != null) {
+                future.cancel(false);
+            }
+            future = executor.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void cancel() {
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
+
+        private void poll() {
+            boolean changed = false;
+            for (GpioState gpioState : states) {
+                try {
+                    State state = gpioState.getPinMode().getGpioModeFactory().getState(gpioState.getInstance());
+                    if (!Objects.equals(gpioState.getLastState(), state)) {
+                        gpioState.updateState(state);
+                        changed = true;
+                    }
+                } catch (Exception ex) {
+                    log.warn("Unable to poll gpio pin: {}. Error: {}", gpioState.getGpioPin(), ex.getMessage());
+                }
+            }
+            interval = changed ? minInterval : Math.min(interval * 2, maxInterval);
+            schedule(interval);
+        }
+
+        @Override
+        public String toString() {
+            return bus + "=" + states.size();
+        }
+    }
+}
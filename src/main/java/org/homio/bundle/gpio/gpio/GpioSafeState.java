@@ -0,0 +1,16 @@
+package org.homio.bundle.gpio.gpio;
+
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Level written to digital output when service is destroyed
+ */
+public enum GpioSafeState {
+    KEEP, LOW, HIGH;
+
+    public @Nullable State toState() {
+        return this == KEEP ? null : OnOffType.of(this == HIGH);
+    }
+}
@@ -2,8 +2,8 @@ package org.homio.bundle.gpio.gpio;
 
 import com.pi4j.io.IO;
 import com.pi4j.io.gpio.digital.PullResistance;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -12,13 +12,22 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.gpio.gesture.GpioGestureDetector;
+import org.homio.bundle.gpio.gpio.metrics.GpioEdgeTracer;
+import org.homio.bundle.gpio.gpio.metrics.GpioEdgeTracer.Stage;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+import org.homio.bundle.gpio.gpio.metrics.LatencyHistogram;
 import org.homio.bundle.gpio.gpio.mode.PinMode;
+import org.homio.bundle.gpio.gpio.rule.GpioRuleTable;
+import org.homio.bundle.gpio.gpio.sensor.GpioBitBangSensor;
 
 @Getter
 @RequiredArgsConstructor
 public class GpioState {
 
-    private final Map<String, Consumer<State>> listeners = new HashMap<>();
+    private final Map<String, Consumer<State>> listeners = new ConcurrentHashMap<>();
+    // expected state -> waiter name -> waiter. Edge runs only waiters of matched state
+    private final Map<State, Map<String, Runnable>> waiters = new ConcurrentHashMap<>();
     private final @NotNull Logger log;
     private final @NotNull GpioPin gpioPin;
     private final @NotNull PinMode pinMode;
@@ -26,13 +35,125 @@ public class GpioState {
 
     @Setter
     private IO instance;
-    private State lastState;
+    private volatile State lastState;
+    private GpioMetrics.Counter eventCounter;
+    private LatencyHistogram listenerTimer;
+    @Setter
+    private GpioEdgeTracer tracer;
+    // write policy of digital output, null if not configured
+    @Setter
+    private volatile GpioOutputGuard guard;
+    // local reactions, executed before listeners
+    @Setter
+    private volatile GpioRuleTable rules;
+    // null if gesture detection disabled for pin
+    @Setter
+    private volatile GpioGestureDetector gestureDetector;
+    // bit-banged sensor of DHT22/ULTRASONIC modes, such pins have no pi4j instance
+    @Setter
+    private volatile GpioBitBangSensor sensor;
+    // written on service shutdown, null - keep current level
+    @Setter
+    private volatile State safeState;
+    // pin is driven by matrix scanner, edges and writes aren't published
+    @Setter
+    private volatile boolean claimed;
+
+    public void setMetrics(GpioMetrics metrics) {
+        this.eventCounter = metrics.counter(String.format(GpioMetrics.PIN_EVENTS, gpioPin.getAddress()));
+        this.listenerTimer = metrics.timer(String.format(GpioMetrics.PIN_LISTENERS, gpioPin.getAddress()));
+    }
 
     public void setLastState(State lastState) {
         log.debug("Update state: '{}' for pin: '{}'", lastState, gpioPin.getName());
         this.lastState = lastState;
     }
 
+    /**
+     * Store new state and notify all pin listeners. Callers are responsible to filter out unchanged states
+     */
+    public void updateState(State state) {
+        updateState(state, System.nanoTime());
+    }
+
+    /**
+     * @param edgeNanos - System.nanoTime() taken as soon as provider fired event
+     */
+    public void updateState(State state, long edgeNanos) {
+        if (claimed) {
+            return;
+        }
+        setLastState(state);
+        GpioRuleTable ruleTable = rules;
+        if (ruleTable != null) {
+            ruleTable.dispatch(state);
+        }
+        if (tracer != null && tracer.isEnabled()) {
+            updateStateTraced(state, edgeNanos);
+            return;
+        }
+        if (eventCounter == null) {
+            for (Consumer<State> listener : listeners.values()) {
+                listener.accept(state);
+            }
+            signalWaiters(state);
+            return;
+        }
+        eventCounter.increment();
+        for (Consumer<State> listener : listeners.values()) {
+            long start = System.nanoTime();
+            listener.accept(state);
+            listenerTimer.recordSince(start);
+        }
+        signalWaiters(state);
+    }
+
+    public void addWaiter(State expectedState, String name, Runnable waiter) {
+        waiters.computeIfAbsent(expectedState, key -> new ConcurrentHashMap<>()).put(name, waiter);
+    }
+
+    public void removeWaiter(State expectedState, String name) {
+        Map<String, Runnable> group = waiters.get(expectedState);
+        if (group != null) {
+            group.remove(name);
+        }
+    }
+
+    public int getWaitersCount() {
+        return waiters.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void signalWaiters(State state) {
+        Map<String, Runnable> group = waiters.get(state);
+        if (group != null) {
+            for (Runnable waiter : group.values()) {
+                waiter.run();
+            }
+        }
+    }
+
+    private void updateStateTraced(State state, long edgeNanos) {
+        int address = gpioPin.getAddress();
+        eventCounter.increment();
+        tracer.record(address, Stage.DISPATCH, null, edgeNanos, System.nanoTime() - edgeNanos);
+        for (Map.Entry<String, Consumer<State>> entry : listeners.entrySet()) {
+            long start = System.nanoTime();
+            entry.getValue().accept(state);
+            long elapsed = System.nanoTime() - start;
+            listenerTimer.record(elapsed);
+            tracer.record(address, Stage.LISTENER, entry.getKey(), edgeNanos, elapsed);
+        }
+        Map<String, Runnable> group = waiters.get(state);
+        if (group != null) {
+            for (Map.Entry<String, Runnable> entry : group.entrySet()) {
+                long start = System.nanoTime();
+                entry.getValue().run();
+                tracer.record(address, Stage.LOCK_SIGNAL, entry.getKey(), edgeNanos, System.nanoTime() - start);
+            }
+        }
+        tracer.record(address, Stage.TOTAL, null, edgeNanos, System.nanoTime() - edgeNanos);
+    }
+
     @Override
     public String toString() {
         return "GpioState{pin=" + gpioPin + ", mode=" + pinMode + ", pull=" + pull + "}";
@@ -0,0 +1,139 @@
+package org.homio.bundle.gpio.gpio;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+import org.homio.bundle.api.state.DecimalType;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+
+/**
+ * Memory mapped pin snapshot with fixed 32 byte slot per pin address. Slot is updated in place on every change, OS flushes dirty
+ * pages, so after restart outputs are created with last level and lastState is known before first read
+ */
+@Log4j2
+public class GpioStateSnapshot implements Closeable {
+
+    private static final int MAGIC = 0x4750494F;
+    private static final int VERSION = 1;
+    private static final int SLOTS = 64;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 32;
+
+    // slot layout
+    private static final int MODE = 0; // byte: PinMode ordinal + 1, 0 - empty slot
+    private static final int LEVEL = 1; // byte: 0/1 for digital modes
+    private static final int VALUE = 4; // float: value for analog/pwm modes
+    private static final int TIMESTAMP = 8; // long: epoch millis of last change
+    private static final int EVENTS = 16; // long: number of changes
+    private static final int WRITES = 24; // long: number of setValue calls
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    public GpioStateSnapshot(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+        this.buffer = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + SLOTS * SLOT_SIZE);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != SLOTS) {
+            log.info("Create new gpio snapshot: {}", path);
+            for (int i = 0; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, SLOTS);
+        }
+    }
+
+    /**
+     * @return persisted state if slot was written for same pin mode, null otherwise
+     */
+    public @Nullable State read(int address, PinMode mode) {
+        int offset = offset(address);
+        if (offset < 0 || buffer.get(offset + MODE) != mode.ordinal() + 1 || buffer.getLong(offset + TIMESTAMP) == 0) {
+            return null;
+        }
+        if (isDigital(mode)) {
+            return OnOffType.of(buffer.get(offset + LEVEL) == 1);
+        }
+        return new DecimalType(buffer.getFloat(offset + VALUE));
+    }
+
+    /**
+     * Drop slot values if pin mode differs from persisted one
+     */
+    public void reset(int address, PinMode mode) {
+        int offset = offset(address);
+        if (offset >= 0 && buffer.get(offset + MODE) != mode.ordinal() + 1) {
+            for (int i = 0; i < SLOT_SIZE; i++) {
+                buffer.put(offset + i, (byte) 0);
+            }
+            buffer.put(offset + MODE, (byte) (mode.ordinal() + 1));
+        }
+    }
+
+    /**
+     * Called from pin listener, so only one writer per slot
+     */
+    public void write(int address, PinMode mode, State state) {
+        int offset = offset(address);
+        if (offset >= 0) {
+            buffer.put(offset + MODE, (byte) (mode.ordinal() + 1));
+            if (isDigital(mode)) {
+                buffer.put(offset + LEVEL, (byte) (state.boolValue() ? 1 : 0));
+            } else {
+                buffer.putFloat(offset + VALUE, state.floatValue());
+            }
+            buffer.putLong(offset + TIMESTAMP, System.currentTimeMillis());
+            buffer.putLong(offset + EVENTS, buffer.getLong(offset + EVENTS) + 1);
+        }
+    }
+
+    public void countWrite(int address) {
+        int offset = offset(address);
+        if (offset >= 0) {
+            buffer.putLong(offset + WRITES, buffer.getLong(offset + WRITES) + 1);
+        }
+    }
+
+    public long getTimestamp(int address) {
+        int offset = offset(address);
+        return offset < 0 ? 0 : buffer.getLong(offset + TIMESTAMP);
+    }
+
+    public long getEvents(int address) {
+        int offset = offset(address);
+        return offset < 0 ? 0 : buffer.getLong(offset + EVENTS);
+    }
+
+    public long getWrites(int address) {
+        int offset = offset(address);
+        return offset < 0 ? 0 : buffer.getLong(offset + WRITES);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private static boolean isDigital(PinMode mode) {
+        return mode == PinMode.DIGITAL_INPUT || mode == PinMode.DIGITAL_OUTPUT;
+    }
+
+    private static int offset(int address) {
+        return address < 0 || address >= SLOTS ? -1 : HEADER_SIZE + address * SLOT_SIZE;
+    }
+}
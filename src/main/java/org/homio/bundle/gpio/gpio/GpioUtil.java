@@ -7,6 +7,7 @@ import com.pi4j.provider.Providers;
 import com.pi4j.registry.Registry;
 import com.pi4j.util.Console;
 import java.io.PrintStream;
+import java.util.List;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
 import org.homio.bundle.api.util.LogOutputStream;
@@ -22,6 +23,17 @@ public class GpioUtil {
         printRegistry(pi4j, console, printStream);
     }
 
+    /**
+     * Parse w1_slave file content. Temperature stored in second line as 't=23125'
+     */
+    public static float parseDS18B20Value(List<String> rawDataAsLines) {
+        if (rawDataAsLines == null) {
+            return -1;
+        }
+        String line = rawDataAsLines.get(1);
+        return Float.parseFloat(line.substring(line.indexOf("t=") + "t=".length())) / 1000;
+    }
+
     private static void printProviders(Context pi4j, Console console, PrintStream printStream) {
         Providers providers = pi4j.providers();
         console.box("Pi4J PROVIDERS");
@@ -0,0 +1,5 @@
+package org.homio.bundle.gpio.gpio.gesture;
+
+public enum GpioGesture {
+    CLICK, DOUBLE_CLICK, LONG_PRESS, HOLD
+}
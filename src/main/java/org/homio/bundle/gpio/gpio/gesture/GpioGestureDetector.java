@@ -0,0 +1,137 @@
+package org.homio.bundle.gpio.gpio.gesture;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import org.homio.bundle.gpio.gpio.timer.GpioTimerWheel;
+
+/**
+ * Button state machine of single digital input. Edges come from pin listener, timeouts from timer wheel through one reusable
+ * timeout, so nothing is allocated per edge
+ */
+public class GpioGestureDetector implements Runnable {
+
+    private final int address;
+    private final boolean activeHigh;
+    private final long doubleClickNanos;
+    private final long longPressNanos;
+    private final long holdRepeatNanos;
+    private final GpioTimerWheel wheel;
+    private final GpioTimerWheel.Timeout timeout;
+    private final GestureListener listener;
+    // gesture -> waiter name -> waiter
+    @Getter
+    private final Map<GpioGesture, Map<String, Runnable>> waiters = new EnumMap<>(GpioGesture.class);
+
+    private Phase phase = Phase.IDLE;
+    private long dueNanos;
+
+    /**
+     * @param activeHigh - false for buttons wired to ground with pull up
+     */
+    public GpioGestureDetector(int address, boolean activeHigh, long doubleClickMillis, long longPressMillis, long holdRepeatMillis,
+        GpioTimerWheel wheel, GestureListener listener) {
+        this.address = address;
+        this.activeHigh = activeHigh;
+        this.doubleClickNanos = TimeUnit.MILLISECONDS.toNanos(doubleClickMillis);
+        this.longPressNanos = TimeUnit.MILLISECONDS.toNanos(longPressMillis);
+        this.holdRepeatNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(holdRepeatMillis, 10));
+        this.wheel = wheel;
+        this.timeout = wheel.newTimeout(this);
+        this.listener = listener;
+        for (GpioGesture gesture : GpioGesture.values()) {
+            waiters.put(gesture, new ConcurrentHashMap<>());
+        }
+    }
+
+    public synchronized void onEdge(boolean level) {
+        boolean pressed = level == activeHigh;
+        switch (phase) {
+            case IDLE:
+                if (pressed) {
+                    phase = Phase.PRESSED;
+                    arm(longPressNanos);
+                }
+                break;
+            case PRESSED:
+                if (!pressed) {
+                    phase = Phase.RELEASED;
+                    arm(doubleClickNanos);
+                }
+                break;
+            case RELEASED:
+                if (pressed) {
+                    phase = Phase.PRESSED_SECOND;
+                    timeout.cancel();
+                }
+                break;
+            case PRESSED_SECOND:
+                if (!pressed) {
+                    phase = Phase.IDLE;
+                    emit(GpioGesture.DOUBLE_CLICK);
+                }
+                break;
+            case HOLDING:
+                if (!pressed) {
+                    phase = Phase.IDLE;
+                    timeout.cancel();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Timer wheel callback
+     */
+    @Override
+    public synchronized void run() {
+        if (System.nanoTime() < dueNanos) {
+            // timeout fired just before edge re-armed it, fire of new arming follows
+            return;
+        }
+        switch (phase) {
+            case PRESSED:
+                phase = Phase.HOLDING;
+                emit(GpioGesture.LONG_PRESS);
+                arm(holdRepeatNanos);
+                break;
+            case HOLDING:
+                emit(GpioGesture.HOLD);
+                arm(holdRepeatNanos);
+                break;
+            case RELEASED:
+                phase = Phase.IDLE;
+                emit(GpioGesture.CLICK);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void cancel() {
+        timeout.cancel();
+    }
+
+    private void arm(long delayNanos) {
+        dueNanos = System.nanoTime() + delayNanos;
+        wheel.schedule(timeout, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void emit(GpioGesture gesture) {
+        for (Runnable waiter : waiters.get(gesture).values()) {
+            waiter.run();
+        }
+        listener.onGesture(address, gesture);
+    }
+
+    private enum Phase {
+        IDLE, PRESSED, RELEASED, PRESSED_SECOND, HOLDING
+    }
+
+    public interface GestureListener {
+
+        void onGesture(int address, GpioGesture gesture);
+    }
+}
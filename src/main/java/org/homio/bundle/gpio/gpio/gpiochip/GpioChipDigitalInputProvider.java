@@ -0,0 +1,64 @@
+package org.homio.bundle.gpio.gpio.gpiochip;
+
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalInput;
+import com.pi4j.io.gpio.digital.DigitalInputBase;
+import com.pi4j.io.gpio.digital.DigitalInputConfig;
+import com.pi4j.io.gpio.digital.DigitalInputProvider;
+import com.pi4j.io.gpio.digital.DigitalInputProviderBase;
+import com.pi4j.io.gpio.digital.DigitalState;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+
+/**
+ * Digital inputs on /dev/gpiochipN lines. Edges are pushed by line event stream with kernel timestamps
+ */
+public class GpioChipDigitalInputProvider extends DigitalInputProviderBase {
+
+    public static final String ID = "gpiochip-digital-input";
+
+    private final GpioChipLines lines;
+
+    public GpioChipDigitalInputProvider(GpioChipLines lines) {
+        this.id = ID;
+        this.name = "Character Device Digital Input (GPIO) Provider";
+        this.lines = lines;
+    }
+
+    @Override
+    public DigitalInput create(DigitalInputConfig config) {
+        int offset = RaspberryGpioPin.getPin(config.address()).getBcm();
+        GpioChipDigitalInput input = new GpioChipDigitalInput(this, config, offset);
+        lines.addInput(offset, config.pull(), input::onEvent);
+        return input;
+    }
+
+    private class GpioChipDigitalInput extends DigitalInputBase {
+
+        private final int offset;
+        private volatile DigitalState state = DigitalState.UNKNOWN;
+
+        GpioChipDigitalInput(DigitalInputProvider provider, DigitalInputConfig config, int offset) {
+            super(provider, config);
+            this.offset = offset;
+        }
+
+        @Override
+        public DigitalState state() {
+            return state;
+        }
+
+        @Override
+        public DigitalInput shutdown(Context context) {
+            lines.removeInput(offset);
+            return super.shutdown(context);
+        }
+
+        void onEvent(int offset, boolean level, long timestampNanos) {
+            DigitalState newState = level ? DigitalState.HIGH : DigitalState.LOW;
+            if (state != newState) {
+                state = newState;
+                dispatch(new GpioChipStateChangeEvent(this, newState, timestampNanos));
+            }
+        }
+    }
+}
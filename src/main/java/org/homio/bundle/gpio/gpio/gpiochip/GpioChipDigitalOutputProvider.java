@@ -0,0 +1,57 @@
+package org.homio.bundle.gpio.gpio.gpiochip;
+
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalOutputBase;
+import com.pi4j.io.gpio.digital.DigitalOutputConfig;
+import com.pi4j.io.gpio.digital.DigitalOutputProvider;
+import com.pi4j.io.gpio.digital.DigitalOutputProviderBase;
+import com.pi4j.io.gpio.digital.DigitalState;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+
+/**
+ * Digital outputs on /dev/gpiochipN lines. All outputs of chip share one line request
+ */
+public class GpioChipDigitalOutputProvider extends DigitalOutputProviderBase {
+
+    public static final String ID = "gpiochip-digital-output";
+
+    private final GpioChipLines lines;
+
+    public GpioChipDigitalOutputProvider(GpioChipLines lines) {
+        this.id = ID;
+        this.name = "Character Device Digital Output (GPIO) Provider";
+        this.lines = lines;
+    }
+
+    @Override
+    public DigitalOutput create(DigitalOutputConfig config) {
+        int offset = RaspberryGpioPin.getPin(config.address()).getBcm();
+        lines.addOutput(offset, config.initialState() != null && config.initialState().isHigh());
+        return new GpioChipDigitalOutput(this, config, offset);
+    }
+
+    private class GpioChipDigitalOutput extends DigitalOutputBase {
+
+        private final int offset;
+
+        GpioChipDigitalOutput(DigitalOutputProvider provider, DigitalOutputConfig config, int offset) {
+            super(provider, config);
+            this.offset = offset;
+        }
+
+        @Override
+        public DigitalOutput state(DigitalState state) {
+            if (state != DigitalState.UNKNOWN) {
+                lines.set(offset, state.isHigh());
+            }
+            return super.state(state);
+        }
+
+        @Override
+        public DigitalOutput shutdown(Context context) {
+            lines.removeOutput(offset);
+            return super.shutdown(context);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package org.homio.bundle.gpio.gpio.gpiochip;
+
+import com.pi4j.io.gpio.digital.PullResistance;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Line requests of one /dev/gpiochipN through libgpiod v2 tools. Every output is held by own 'gpioset -i' request, so adding or
+ * removing a pin never releases other outputs(released line falls back to input). Inputs provisioned together are requested in one
+ * 'gpiomon' request per bias; request is kept while any of its lines is in use, so other inputs don't lose edges. Event stream is
+ * read in batches into reused buffer and parsed in place, timestamps are kernel CLOCK_MONOTONIC nanos which is same clock as
+ * System.nanoTime(). Request whose tool process died is requested again after RESTART_DELAY. gpio-sim chip may be used instead of
+ * real one
+ */
+@Log4j2
+public class GpioChipLines implements Closeable {
+
+    public static final String DEFAULT_CHIP = "gpiochip0";
+
+    private static final int READ_BUFFER = 4096;
+    // provisioning comes pin by pin, so inputs are requested once after short delay
+    private static final long REQUEST_DELAY = 20;
+    private static final long VERSION_TIMEOUT = 2000;
+    // tool process which died is restarted after this delay, so broken line doesn't spin
+    private static final long RESTART_DELAY = 1000;
+
+    private final String chip;
+    private final Path toolsDir;
+    private final Map<Integer, Input> inputs = new ConcurrentHashMap<>();
+    // last known level of every requested input line
+    private final Map<Integer, Boolean> levels = new ConcurrentHashMap<>();
+    private final Map<Integer, Output> outputs = new ConcurrentHashMap<>();
+    private final List<InputRequest> inputRequests = new ArrayList<>();
+    private final Set<Integer> pendingInputs = new HashSet<>();
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> inputRequest;
+    private volatile boolean closed;
+
+    /**
+     * @param toolsDir - directory with gpiomon/gpioset/gpioget, null - lookup in PATH
+     * @throws IOException if libgpiod v2 tools are not installed
+     */
+    public GpioChipLines(String chip, @Nullable Path toolsDir) throws IOException {
+        this.chip = chip;
+        this.toolsDir = toolsDir;
+        checkTools();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gpiochip-" + chip);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void addInput(int offset, PullResistance pull, LineEventConsumer consumer) {
+        PullResistance bias = pull == null ? PullResistance.OFF : pull;
+        removeOutput(offset);
+        inputs.put(offset, new Input(bias, consumer));
+        InputRequest request = findInputRequest(offset);
+        if (request != null && request.pull == bias) {
+            // line is still held by its request, no need to touch other lines
+            consumer.onEvent(offset, levels.getOrDefault(offset, false), System.nanoTime());
+            return;
+        }
+        if (request != null) {
+            releaseInputRequest(request);
+        }
+        pendingInputs.add(offset);
+        scheduleInputRequest();
+    }
+
+    public synchronized void removeInput(int offset) {
+        if (inputs.remove(offset) == null) {
+            return;
+        }
+        pendingInputs.remove(offset);
+        InputRequest request = findInputRequest(offset);
+        if (request != null && request.offsets.stream().noneMatch(inputs::containsKey)) {
+            request.process.destroy();
+            inputRequests.remove(request);
+            request.offsets.forEach(levels::remove);
+        }
+    }
+
+    public synchronized void addOutput(int offset, boolean level) {
+        Output output = outputs.get(offset);
+        if (output != null) {
+            set(offset, level);
+            return;
+        }
+        inputs.remove(offset);
+        pendingInputs.remove(offset);
+        InputRequest request = findInputRequest(offset);
+        if (request != null) {
+            // input line which shares request with other inputs
+            releaseInputRequest(request);
+        }
+        output = new Output(level);
+        outputs.put(offset, output);
+        requestOutput(offset, output);
+    }
+
+    public synchronized void removeOutput(int offset) {
+        Output output = outputs.remove(offset);
+        if (output != null) {
+            output.release();
+        }
+    }
+
+    /**
+     * Level of not requested line is remembered only
+     */
+    public void set(int offset, boolean level) {
+        Output output = outputs.get(offset);
+        if (output != null) {
+            output.set(offset, level);
+        }
+    }
+
+    /**
+     * @return cached level of input line which is updated by events
+     */
+    public boolean level(int offset) {
+        return inputs.containsKey(offset) && levels.getOrDefault(offset, false);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        executor.shutdownNow();
+        inputRequests.forEach(request -> request.process.destroy());
+        inputRequests.clear();
+        outputs.values().forEach(Output::release);
+        outputs.clear();
+    }
+
+    private void checkTools() throws IOException {
+        try {
+            Process process = new ProcessBuilder(command("gpioset", "--version")).redirectErrorStream(true).start();
+            String version = new String(process.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim();
+            if (!process.waitFor(VERSION_TIMEOUT, TimeUnit.MILLISECONDS) || !version.contains("v2")) {
+                process.destroy();
+                throw new IOException("Unsupported gpioset version '" + version + "'");
+            }
+        } catch (IOException ex) {
+            throw new IOException("GPIOCHIP provider requires libgpiod v2 tools(gpioset, gpiomon, gpioget): " + ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking libgpiod tools", ex);
+        }
+    }
+
+    private @Nullable InputRequest findInputRequest(int offset) {
+        for (InputRequest request : inputRequests) {
+            if (request.offsets.contains(offset)) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Line of request is needed with other bias or as output. Only this request is re-requested, its lines lose edges meanwhile
+     */
+    private void releaseInputRequest(InputRequest request) {
+        request.process.destroy();
+        inputRequests.remove(request);
+        for (Integer offset : request.offsets) {
+            if (inputs.containsKey(offset)) {
+                pendingInputs.add(offset);
+            }
+        }
+        log.info("Re-request gpiochip {} input lines {}", chip, request.offsets);
+        scheduleInputRequest();
+    }
+
+    private void scheduleInputRequest() {
+        scheduleInputRequest(REQUEST_DELAY);
+    }
+
+    private void scheduleInputRequest(long delay) {
+        if (inputRequest != null) {
+            inputRequest.cancel(false);
+        }
+        inputRequest = closed ? null : executor.schedule(this::requestInputs, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * gpiomon exited by itself(killed, line revoked, crashed). Released requests are already removed from inputRequests
+     */
+    private synchronized void onInputRequestEnded(InputRequest request) {
+        if (closed || !inputRequests.remove(request)) {
+            return;
+        }
+        log.warn("gpiochip {} monitor of input lines {} exited with code {}. Request lines again in {}ms", chip, request.offsets,
+            exitCode(request.process), RESTART_DELAY);
+        for (Integer offset : request.offsets) {
+            levels.remove(offset);
+            if (inputs.containsKey(offset)) {
+                pendingInputs.add(offset);
+            }
+        }
+        scheduleInputRequest(RESTART_DELAY);
+    }
+
+    private synchronized void onOutputEnded(int offset, Output output, Process process) {
+        if (closed || outputs.get(offset) != output || !output.detach(process)) {
+            return;
+        }
+        log.warn("gpioset of gpiochip {} output line {} exited with code {}. Request line again in {}ms", chip, offset,
+            exitCode(process), RESTART_DELAY);
+        executor.schedule(() -> {
+            synchronized (this) {
+                if (!closed && outputs.get(offset) == output) {
+                    requestOutput(offset, output);
+                }
+            }
+        }, RESTART_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void requestInputs() {
+        Map<PullResistance, List<Integer>> groups = new EnumMap<>(PullResistance.class);
+        for (Integer offset : pendingInputs) {
+            Input input = inputs.get(offset);
+            if (input != null) {
+                groups.computeIfAbsent(input.pull, pull -> new ArrayList<>()).add(offset);
+            }
+        }
+        pendingInputs.clear();
+        for (Map.Entry<PullResistance, List<Integer>> group : groups.entrySet()) {
+            try {
+                // initial levels have to be read before lines are held by monitor
+                readLevels(group.getKey(), group.getValue());
+                List<String> command = command("gpiomon", "-c", chip, "-b", bias(group.getKey()), "-F", "%o %e %S");
+                group.getValue().forEach(offset -> command.add(String.valueOf(offset)));
+                Process process = new ProcessBuilder(command).redirectError(Redirect.DISCARD).start();
+                InputRequest request = new InputRequest(group.getKey(), new HashSet<>(group.getValue()), process);
+                inputRequests.add(request);
+                Thread reader = new Thread(() -> {
+                    readEvents(process.getInputStream());
+                    onInputRequestEnded(request);
+                }, "gpiochip-" + chip + "-" + group.getValue());
+                reader.setDaemon(true);
+                reader.start();
+                log.info("Requested gpiochip {} input lines {} with bias {}", chip, group.getValue(), group.getKey());
+            } catch (Exception ex) {
+                log.error("Unable to request gpiochip {} input lines {}: {}", chip, group.getValue(), ex.getMessage());
+            }
+        }
+    }
+
+    private void requestOutput(int offset, Output output) {
+        List<String> command = command("gpioset", "-c", chip, "-i", offset + "=" + (output.getLevel() ? 1 : 0));
+        try {
+            Process process = new ProcessBuilder(command).redirectOutput(Redirect.DISCARD).redirectError(Redirect.DISCARD).start();
+            output.attach(process);
+            process.onExit().thenRun(() -> onOutputEnded(offset, output, process));
+            log.info("Requested gpiochip {} output line {}", chip, offset);
+        } catch (IOException ex) {
+            log.error("Unable to request gpiochip {} output line {}: {}", chip, offset, ex.getMessage());
+        }
+    }
+
+    private void readLevels(PullResistance pull, List<Integer> offsets) throws IOException, InterruptedException {
+        List<String> command = command("gpioget", "-c", chip, "-b", bias(pull), "--numeric");
+        offsets.forEach(offset -> command.add(String.valueOf(offset)));
+        Process process = new ProcessBuilder(command).redirectError(Redirect.DISCARD).start();
+        String[] values = new String(process.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim().split("\\s+");
+        process.waitFor();
+        for (int i = 0; i < values.length && i < offsets.size(); i++) {
+            boolean level = "1".equals(values[i]);
+            levels.put(offsets.get(i), level);
+            Input input = inputs.get(offsets.get(i));
+            if (input != null) {
+                input.consumer.onEvent(offsets.get(i), level, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Event line format: '<offset> <1 - rising, 2 - falling> <seconds>.<nanos>'. One read may contain many events
+     */
+    void readEvents(InputStream stream) {
+        byte[] buffer = new byte[READ_BUFFER];
+        int length = 0;
+        try {
+            int read;
+            while ((read = stream.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+                int start = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer[i] == '\n') {
+                        parseEvent(buffer, start, i);
+                        start = i + 1;
+                    }
+                }
+                length -= start;
+                System.arraycopy(buffer, start, buffer, 0, length);
+                if (length == buffer.length) {
+                    // garbage without line breaks
+                    length = 0;
+                }
+            }
+        } catch (IOException ex) {
+            if (!closed) {
+                log.warn("gpiochip {} event stream closed: {}", chip, ex.getMessage());
+            }
+        }
+    }
+
+    private void parseEvent(byte[] buffer, int from, int to) {
+        int offset = 0;
+        int edge = 0;
+        long seconds = 0;
+        long nanos = 0;
+        int nanoDigits = 0;
+        int field = 0;
+        for (int i = from; i < to; i++) {
+            byte ch = buffer[i];
+            if (ch == ' ') {
+                field++;
+            } else if (ch == '.') {
+                field = 3;
+            } else if (ch >= '0' && ch <= '9') {
+                int digit = ch - '0';
+                if (field == 0) {
+                    offset = offset * 10 + digit;
+                } else if (field == 1) {
+                    edge = digit;
+                } else if (field == 2) {
+                    seconds = seconds * 10 + digit;
+                } else {
+                    nanos = nanos * 10 + digit;
+                    nanoDigits++;
+                }
+            }
+        }
+        if (field < 2 || (edge != 1 && edge != 2)) {
+            return;
+        }
+        // level of held but unused line is tracked too, line may be reused without re-request
+        levels.put(offset, edge == 1);
+        Input input = inputs.get(offset);
+        if (input == null) {
+            return;
+        }
+        for (; nanoDigits < 9; nanoDigits++) {
+            nanos *= 10;
+        }
+        input.consumer.onEvent(offset, edge == 1, TimeUnit.SECONDS.toNanos(seconds) + nanos);
+    }
+
+    private static String exitCode(Process process) {
+        try {
+            return process.waitFor(VERSION_TIMEOUT, TimeUnit.MILLISECONDS) ? String.valueOf(process.exitValue()) : "?";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "?";
+        }
+    }
+
+    private List<String> command(String tool, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(toolsDir == null ? tool : toolsDir.resolve(tool).toString());
+        command.addAll(List.of(args));
+        return command;
+    }
+
+    private static String bias(PullResistance pull) {
+        if (pull == PullResistance.PULL_UP) {
+            return "pull-up";
+        }
+        return pull == PullResistance.PULL_DOWN ? "pull-down" : "disabled";
+    }
+
+    public interface LineEventConsumer {
+
+        /**
+         * @param timestampNanos - kernel monotonic timestamp of edge
+         */
+        void onEvent(int offset, boolean level, long timestampNanos);
+    }
+
+    private static class Input {
+
+        private final PullResistance pull;
+        private final LineEventConsumer consumer;
+
+        Input(PullResistance pull, LineEventConsumer consumer) {
+            this.pull = pull;
+            this.consumer = consumer;
+        }
+    }
+
+    private static class InputRequest {
+
+        private final PullResistance pull;
+        // lines held by request, some may be unused
+        private final Set<Integer> offsets;
+        private final Process process;
+
+        InputRequest(PullResistance pull, Set<Integer> offsets, Process process) {
+            this.pull = pull;
+            this.offsets = offsets;
+            this.process = process;
+        }
+    }
+
+    private static class Output {
+
+        private @Nullable Process process;
+        private @Nullable OutputStream stream;
+        private boolean level;
+
+        Output(boolean level) {
+            this.level = level;
+        }
+
+        synchronized void attach(Process process) {
+            this.process = process;
+            this.stream = process.getOutputStream();
+        }
+
+        /**
+         * @return false if process was already released or replaced
+         */
+        synchronized boolean detach(Process process) {
+            if (this.process != process) {
+                return false;
+            }
+            this.process = null;
+            this.stream = null;
+            return true;
+        }
+
+        synchronized boolean getLevel() {
+            return level;
+        }
+
+        synchronized void set(int offset, boolean level) {
+            this.level = level;
+            if (stream != null) {
+                try {
+                    stream.write(("set " + offset + "=" + (level ? 1 : 0) + "\n").getBytes(StandardCharsets.US_ASCII));
+                    stream.flush();
+                } catch (IOException ex) {
+                    log.warn("Unable to write gpiochip line {}: {}", offset, ex.getMessage());
+                }
+            }
+        }
+
+        synchronized void release() {
+            stream = null;
+            if (process != null) {
+                process.destroy();
+                process = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.homio.bundle.gpio.gpio.gpiochip;
+
+import com.pi4j.io.gpio.digital.Digital;
+import com.pi4j.io.gpio.digital.DigitalState;
+import com.pi4j.io.gpio.digital.DigitalStateChangeEvent;
+import lombok.Getter;
+
+/**
+ * Change event which carries kernel edge timestamp instead of time when event reached java
+ */
+@Getter
+public class GpioChipStateChangeEvent extends DigitalStateChangeEvent<Digital<?, ?, ?>> {
+
+    private final long timestampNanos;
+
+    public GpioChipStateChangeEvent(Digital<?, ?, ?> source, DigitalState state, long timestampNanos) {
+        super(source, state);
+        this.timestampNanos = timestampNanos;
+    }
+}
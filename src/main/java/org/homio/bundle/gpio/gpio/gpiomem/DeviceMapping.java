@@ -0,0 +1,136 @@
+package org.homio.bundle.gpio.gpio.gpiomem;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+
+/**
+ * All JDK internals used to map character device. FileChannel.map() tries to extend device to mapped size and fails, so device is
+ * mapped with native map0 of FileChannelImpl(JDK 11-20) or FileDispatcherImpl(JDK 21+), which needs
+ * '--add-opens java.base/sun.nio.ch=ALL-UNNAMED'. Mapped memory is accessed with sun.misc.Unsafe from jdk.unsupported module,
+ * looked up reflectively so build has no internal api warnings
+ */
+final class DeviceMapping {
+
+    private static final int MAP_RW = 1;
+
+    private static final MethodHandle GET_INT;
+    private static final MethodHandle PUT_INT;
+    private static final Throwable UNSAFE_ERROR;
+
+    static {
+        MethodHandle getInt = null;
+        MethodHandle putInt = null;
+        Throwable error = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            getInt = lookup.findVirtual(unsafeClass, "getIntVolatile", MethodType.methodType(int.class, Object.class, long.class))
+                           .bindTo(unsafe);
+            putInt = lookup.findVirtual(unsafeClass, "putIntVolatile",
+                MethodType.methodType(void.class, Object.class, long.class, int.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            error = ex;
+        }
+        GET_INT = getInt;
+        PUT_INT = putInt;
+        UNSAFE_ERROR = error;
+    }
+
+    private DeviceMapping() {
+    }
+
+    /**
+     * @return address of mapping
+     */
+    static long map(FileChannel channel, long size) throws IOException {
+        if (UNSAFE_ERROR != null) {
+            throw new IOException("sun.misc.Unsafe is not available on JDK " + Runtime.version() + ": " + UNSAFE_ERROR, UNSAFE_ERROR);
+        }
+        try {
+            Object dispatcher = getField(channel, "nd");
+            FileDescriptor fd = (FileDescriptor) getField(channel, "fd");
+            Method map0 = findMethod("map0", channel, dispatcher);
+            switch (map0.getParameterCount()) {
+                case 3: // JDK 11-13: map0(prot, position, length)
+                    return (long) map0.invoke(channel, MAP_RW, 0L, size);
+                case 4: // JDK 14-18: map0(prot, position, length, isSync)
+                    return (long) map0.invoke(channel, MAP_RW, 0L, size, false);
+                case 5: // JDK 19+: map0(fd, prot, position, length, isSync)
+                    return (long) map0.invoke(map0.getDeclaringClass().isInstance(channel) ? channel : dispatcher, fd, MAP_RW, 0L,
+                        size, false);
+                default:
+                    throw new IOException("Unsupported map0 signature " + map0 + " on JDK " + Runtime.version());
+            }
+        } catch (InvocationTargetException ex) {
+            throw new IOException("Unable to map gpio registers: " + ex.getCause(), ex.getCause());
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new IOException("Unable to map gpio registers on JDK " + Runtime.version()
+                + ". Run with '--add-opens java.base/sun.nio.ch=ALL-UNNAMED': " + ex, ex);
+        }
+    }
+
+    static void unmap(FileChannel channel, long address, long size) throws IOException {
+        try {
+            Object dispatcher = getField(channel, "nd");
+            Method unmap0 = findMethod("unmap0", channel, dispatcher);
+            unmap0.invoke(unmap0.getDeclaringClass().isInstance(channel) ? channel : dispatcher, address, size);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new IOException("Unable to unmap gpio registers: " + ex, ex);
+        }
+    }
+
+    static int getIntVolatile(long address) {
+        try {
+            return (int) GET_INT.invokeExact((Object) null, address);
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static void putIntVolatile(long address, int value) {
+        try {
+            PUT_INT.invokeExact((Object) null, address, value);
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Method findMethod(String name, Object... targets) throws NoSuchMethodException {
+        for (Object target : targets) {
+            if (target == null) {
+                continue;
+            }
+            for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.getName().equals(name)) {
+                        method.setAccessible(true);
+                        return method;
+                    }
+                }
+            }
+        }
+        throw new NoSuchMethodException(name + " not found in FileChannelImpl/FileDispatcherImpl of JDK " + Runtime.version());
+    }
+
+    private static Object getField(Object target, String name) throws IllegalAccessException {
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(target);
+            } catch (NoSuchFieldException ignore) {
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package org.homio.bundle.gpio.gpio.gpiomem;
+
+import com.pi4j.io.gpio.digital.DigitalInput;
+import com.pi4j.io.gpio.digital.DigitalInputBase;
+import com.pi4j.io.gpio.digital.DigitalInputConfig;
+import com.pi4j.io.gpio.digital.DigitalInputProvider;
+import com.pi4j.io.gpio.digital.DigitalInputProviderBase;
+import com.pi4j.io.gpio.digital.DigitalState;
+import com.pi4j.io.gpio.digital.PullResistance;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.GpioPolledProvider;
+
+/**
+ * Digital inputs read straight from GPLEV registers. Registers have no interrupts, so pins are polled
+ */
+public class GpioMemDigitalInputProvider extends DigitalInputProviderBase implements GpioPolledProvider {
+
+    public static final String ID = "gpiomem-digital-input";
+
+    private final GpioMemRegisters registers;
+
+    public GpioMemDigitalInputProvider(GpioMemRegisters registers) {
+        this.id = ID;
+        this.name = "Memory Mapped Digital Input (GPIO) Provider";
+        this.registers = registers;
+    }
+
+    @Override
+    public DigitalInput create(DigitalInputConfig config) {
+        int bcm = RaspberryGpioPin.getPin(config.address()).getBcm();
+        registers.setOutput(bcm, false);
+        registers.setPull(bcm, config.pull() == null ? PullResistance.OFF : config.pull());
+        return new GpioMemDigitalInput(this, config, bcm);
+    }
+
+    private class GpioMemDigitalInput extends DigitalInputBase {
+
+        private final int bcm;
+
+        GpioMemDigitalInput(DigitalInputProvider provider, DigitalInputConfig config, int bcm) {
+            super(provider, config);
+            this.bcm = bcm;
+        }
+
+        @Override
+        public DigitalState state() {
+            return registers.level(bcm) ? DigitalState.HIGH : DigitalState.LOW;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.homio.bundle.gpio.gpio.gpiomem;
+
+import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalOutputBase;
+import com.pi4j.io.gpio.digital.DigitalOutputConfig;
+import com.pi4j.io.gpio.digital.DigitalOutputProvider;
+import com.pi4j.io.gpio.digital.DigitalOutputProviderBase;
+import com.pi4j.io.gpio.digital.DigitalState;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+
+/**
+ * Digital outputs written with single GPSET/GPCLR register store
+ */
+public class GpioMemDigitalOutputProvider extends DigitalOutputProviderBase {
+
+    public static final String ID = "gpiomem-digital-output";
+
+    private final GpioMemRegisters registers;
+
+    public GpioMemDigitalOutputProvider(GpioMemRegisters registers) {
+        this.id = ID;
+        this.name = "Memory Mapped Digital Output (GPIO) Provider";
+        this.registers = registers;
+    }
+
+    @Override
+    public DigitalOutput create(DigitalOutputConfig config) {
+        int bcm = RaspberryGpioPin.getPin(config.address()).getBcm();
+        GpioMemDigitalOutput output = new GpioMemDigitalOutput(this, config, bcm);
+        // latch initial level before pin becomes output to avoid glitch
+        if (config.initialState() != null) {
+            registers.write(bcm, config.initialState().isHigh());
+        }
+        registers.setOutput(bcm, true);
+        return output;
+    }
+
+    private class GpioMemDigitalOutput extends DigitalOutputBase {
+
+        private final int bcm;
+
+        GpioMemDigitalOutput(DigitalOutputProvider provider, DigitalOutputConfig config, int bcm) {
+            super(provider, config);
+            this.bcm = bcm;
+        }
+
+        @Override
+        public DigitalOutput state(DigitalState state) {
+            if (state != DigitalState.UNKNOWN) {
+                registers.write(bcm, state.isHigh());
+            }
+            return super.state(state);
+        }
+    }
+}
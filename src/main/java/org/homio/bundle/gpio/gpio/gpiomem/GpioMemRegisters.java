@@ -0,0 +1,290 @@
+package org.homio.bundle.gpio.gpio.gpiomem;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.pi4j.io.gpio.digital.PullResistance;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.api.util.BoardInfo;
+import org.homio.bundle.gpio.gpio.matrix.GpioPort;
+import org.homio.bundle.gpio.gpio.sensor.GpioBitBangPin;
+
+/**
+ * BCM283x/BCM2711 gpio register block mapped from /dev/gpiomem. Every pin read/write is one volatile 32bit access, no syscalls.
+ * Regular file of at least BLOCK_SIZE bytes may stand in for register map, so provider may be tested on any Linux box
+ */
+@Log4j2
+public abstract class GpioMemRegisters implements Closeable {
+
+    public static final String DEFAULT_PATH = "/dev/gpiomem";
+    public static final int BLOCK_SIZE = 0xF4;
+
+    private static final int GPFSEL0 = 0x00;
+    private static final int GPSET0 = 0x1C;
+    private static final int GPCLR0 = 0x28;
+    private static final int GPLEV0 = 0x34;
+    // BCM2835-BCM2837 pull control: GPPUD + clock sequence
+    private static final int GPPUD = 0x94;
+    private static final int GPPUDCLK0 = 0x98;
+    // BCM2711 pull control: 2 bits per pin
+    private static final int GPIO_PUP_PDN_CNTRL0 = 0xE4;
+
+    private final boolean bcm2711;
+
+    protected GpioMemRegisters(boolean bcm2711) {
+        this.bcm2711 = bcm2711;
+    }
+
+    public static GpioMemRegisters open(Path path) throws IOException {
+        return open(path, isBcm2711());
+    }
+
+    public static GpioMemRegisters open(Path path, boolean bcm2711) throws IOException {
+        FileChannel channel = FileChannel.open(path, READ, WRITE);
+        try {
+            if (Files.isRegularFile(path)) {
+                if (channel.size() < BLOCK_SIZE) {
+                    throw new IOException("Register file " + path + " must be at least " + BLOCK_SIZE + " bytes");
+                }
+                return new BufferRegisters(channel, bcm2711);
+            }
+            // FileChannel.map() tries to extend character devices and fails, so map device directly
+            return new DeviceRegisters(channel, bcm2711);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Processor field of revision code, 3 - BCM2711
+     */
+    public static boolean isBcm2711() {
+        return BoardInfo.revision != null && ((Long.parseLong(BoardInfo.revision.trim(), 16) >> 12) & 0xF) == 3;
+    }
+
+    public boolean level(int bcm) {
+        return (read(GPLEV0 + (bcm >> 5) * 4) & (1 << (bcm & 31))) != 0;
+    }
+
+    /**
+     * GPSET/GPCLR are write-only and touch only bits set in written value, so no read-modify-write is needed
+     */
+    public void write(int bcm, boolean high) {
+        write((high ? GPSET0 : GPCLR0) + (bcm >> 5) * 4, 1 << (bcm & 31));
+    }
+
+    public synchronized void setOutput(int bcm, boolean output) {
+        int offset = GPFSEL0 + (bcm / 10) * 4;
+        int shift = (bcm % 10) * 3;
+        write(offset, (read(offset) & ~(7 << shift)) | ((output ? 1 : 0) << shift));
+    }
+
+    public synchronized void setPull(int bcm, PullResistance pull) {
+        if (bcm2711) {
+            int offset = GPIO_PUP_PDN_CNTRL0 + (bcm >> 4) * 4;
+            int shift = (bcm & 15) * 2;
+            int bits = pull == PullResistance.PULL_UP ? 1 : pull == PullResistance.PULL_DOWN ? 2 : 0;
+            write(offset, (read(offset) & ~(3 << shift)) | (bits << shift));
+        } else {
+            int bits = pull == PullResistance.PULL_UP ? 2 : pull == PullResistance.PULL_DOWN ? 1 : 0;
+            int clock = GPPUDCLK0 + (bcm >> 5) * 4;
+            // datasheet requires 150 cycles between steps
+            write(GPPUD, bits);
+            pause();
+            write(clock, 1 << (bcm & 31));
+            pause();
+            write(GPPUD, 0);
+            write(clock, 0);
+        }
+    }
+
+    public GpioBitBangPin bitBangPin(int bcm) {
+        return new GpioBitBangPin() {
+            @Override
+            public void output(boolean level) {
+                write(bcm, level);
+                setOutput(bcm, true);
+            }
+
+            @Override
+            public void input() {
+                setOutput(bcm, false);
+            }
+
+            @Override
+            public boolean read() {
+                return level(bcm);
+            }
+        };
+    }
+
+    /**
+     * Whole port is written with one GPSET and one GPCLR store and read with one GPLEV load. Header pins are all in bank 0
+     */
+    public GpioPort port(int[] bcm) {
+        int[] masks = new int[bcm.length];
+        int all = 0;
+        for (int i = 0; i < bcm.length; i++) {
+            masks[i] = 1 << bcm[i];
+            all |= masks[i];
+        }
+        int allMask = all;
+        return new GpioPort() {
+            // pins switched to output by drain(), -1 - all pins are outputs
+            private int outputs = -1;
+
+            @Override
+            public void drain(int low) {
+                if (outputs == -1) {
+                    // release all pins before latch is cleared, so no pin is driven LOW unintentionally
+                    for (int pin : bcm) {
+                        setOutput(pin, false);
+                    }
+                    GpioMemRegisters.this.write(GPCLR0, allMask);
+                    outputs = 0;
+                }
+                // release previous row before next one is driven
+                for (int i = 0; i < bcm.length; i++) {
+                    if ((outputs & ~low & (1 << i)) != 0) {
+                        setOutput(bcm[i], false);
+                    }
+                }
+                for (int i = 0; i < bcm.length; i++) {
+                    if ((low & ~outputs & (1 << i)) != 0) {
+                        setOutput(bcm[i], true);
+                    }
+                }
+                outputs = low;
+            }
+
+            @Override
+            public void write(int bits) {
+                int set = 0;
+                int clear = 0;
+                for (int i = 0; i < masks.length; i++) {
+                    if ((bits & (1 << i)) != 0) {
+                        set |= masks[i];
+                    } else {
+                        clear |= masks[i];
+                    }
+                }
+                if (set != 0) {
+                    GpioMemRegisters.this.write(GPSET0, set);
+                }
+                if (clear != 0) {
+                    GpioMemRegisters.this.write(GPCLR0, clear);
+                }
+                // levels are latched before released pins become outputs again
+                if (outputs != -1) {
+                    for (int i = 0; i < bcm.length; i++) {
+                        if ((outputs & (1 << i)) == 0) {
+                            setOutput(bcm[i], true);
+                        }
+                    }
+                    outputs = -1;
+                }
+            }
+
+            @Override
+            public int read() {
+                int level = GpioMemRegisters.this.read(GPLEV0);
+                int bits = 0;
+                for (int i = 0; i < masks.length; i++) {
+                    if ((level & masks[i]) != 0) {
+                        bits |= 1 << i;
+                    }
+                }
+                return bits;
+            }
+        };
+    }
+
+    protected abstract int read(int offset);
+
+    protected abstract void write(int offset, int value);
+
+    private static void pause() {
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static class BufferRegisters extends GpioMemRegisters {
+
+        private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        BufferRegisters(FileChannel channel, boolean bcm2711) throws IOException {
+            super(bcm2711);
+            this.channel = channel;
+            this.buffer = channel.map(MapMode.READ_WRITE, 0, BLOCK_SIZE);
+        }
+
+        @Override
+        protected int read(int offset) {
+            return (int) INT.getVolatile(buffer, offset);
+        }
+
+        @Override
+        protected void write(int offset, int value) {
+            INT.setVolatile(buffer, offset, value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Device mapping through JDK internals of DeviceMapping. Requires '--add-opens java.base/sun.nio.ch=ALL-UNNAMED'
+     */
+    private static class DeviceRegisters extends GpioMemRegisters {
+
+        private static final long MAP_SIZE = 4096;
+
+        private final FileChannel channel;
+        private final long address;
+
+        DeviceRegisters(FileChannel channel, boolean bcm2711) throws IOException {
+            super(bcm2711);
+            this.channel = channel;
+            this.address = DeviceMapping.map(channel, MAP_SIZE);
+        }
+
+        @Override
+        protected int read(int offset) {
+            return DeviceMapping.getIntVolatile(address + offset);
+        }
+
+        @Override
+        protected void write(int offset, int value) {
+            DeviceMapping.putIntVolatile(address + offset, value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                DeviceMapping.unmap(channel, address, MAP_SIZE);
+            } catch (IOException ex) {
+                log.warn("Unable to unmap gpio registers: {}", ex.getMessage());
+            }
+            channel.close();
+        }
+    }
+}
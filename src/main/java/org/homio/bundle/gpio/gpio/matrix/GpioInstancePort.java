@@ -0,0 +1,40 @@
+package org.homio.bundle.gpio.gpio.matrix;
+
+import com.pi4j.io.gpio.digital.Digital;
+import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalState;
+
+/**
+ * Port over pi4j instances for providers without batch access. Only changed bits are written
+ */
+public class GpioInstancePort implements GpioPort {
+
+    private final Digital<?, ?, ?>[] pins;
+    private int written = -1;
+
+    public GpioInstancePort(Digital<?, ?, ?>[] pins) {
+        this.pins = pins;
+    }
+
+    @Override
+    public void write(int bits) {
+        int changed = written == -1 ? -1 : bits ^ written;
+        for (int i = 0; i < pins.length; i++) {
+            if ((changed & (1 << i)) != 0) {
+                ((DigitalOutput) pins[i]).state((bits & (1 << i)) != 0 ? DigitalState.HIGH : DigitalState.LOW);
+            }
+        }
+        written = bits;
+    }
+
+    @Override
+    public int read() {
+        int bits = 0;
+        for (int i = 0; i < pins.length; i++) {
+            if (pins[i].state().isHigh()) {
+                bits |= 1 << i;
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,183 @@
+package org.homio.bundle.gpio.gpio.matrix;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Multiplexed keypad or LED matrix. One row is served per tick, so whole matrix is scanned every rows * tick. Keypad: active row is
+ * driven LOW and idle rows float, columns have pull-up and read LOW for pressed key; key state is debounced by per key integrator. LED: active row is
+ * driven HIGH, columns LOW light pixels of frame buffer row. Nothing is published per tick, only key changes
+ */
+@Log4j2
+public class GpioMatrix implements Runnable {
+
+    private static final String KEYS_4X4 = "123A456B789C*0#D";
+    private static final String KEYS_4X3 = "123456789*0#";
+
+    @Getter
+    private final String name;
+    @Getter
+    private final Type type;
+    private final GpioPort rows;
+    private final GpioPort cols;
+    @Getter
+    private final int rowCount;
+    @Getter
+    private final int colCount;
+    private final int rowMask;
+    private final int colMask;
+    private final int debounceScans;
+    private final KeyListener listener;
+    // keypad: integrator per key, 0 - released .. debounceScans - pressed
+    private final int[] counters;
+    // keypad: debounced pressed bits per row
+    private final int[] pressed;
+    // led: lit pixel bits per row, written by any thread
+    private final AtomicIntegerArray frame;
+    // scan thread only
+    private int row;
+
+    /**
+     * @param debounceScans - number of equal frames required to accept key change
+     */
+    public GpioMatrix(String name, Type type, GpioPort rows, int rowCount, GpioPort cols, int colCount, int debounceScans,
+        KeyListener listener) {
+        this.name = name;
+        this.type = type;
+        this.rows = rows;
+        this.cols = cols;
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.rowMask = (1 << rowCount) - 1;
+        this.colMask = (1 << colCount) - 1;
+        this.debounceScans = Math.max(1, debounceScans);
+        this.listener = listener;
+        this.counters = new int[rowCount * colCount];
+        this.pressed = new int[rowCount];
+        this.frame = new AtomicIntegerArray(rowCount);
+        if (type == Type.KEYPAD) {
+            rows.drain(1);
+        } else {
+            rows.write(0);
+            cols.write(colMask);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (type == Type.KEYPAD) {
+                scanKeys();
+            } else {
+                refreshRow();
+            }
+        } catch (Exception ex) {
+            log.warn("Gpio matrix '{}' scan failed: {}", name, ex.getMessage());
+        }
+    }
+
+    public void setRow(int row, int bits) {
+        frame.set(row, bits & colMask);
+    }
+
+    public void setPixel(int row, int col, boolean on) {
+        int bit = 1 << col;
+        frame.getAndUpdate(row, bits -> on ? bits | bit : bits & ~bit);
+    }
+
+    /**
+     * @return copy of LED frame buffer, bit i of row - column i lit
+     */
+    public int[] getFrame() {
+        int[] bits = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            bits[i] = frame.get(i);
+        }
+        return bits;
+    }
+
+    /**
+     * Restore frame of previous matrix instance, extra rows/columns are dropped
+     */
+    public void setFrame(int[] bits) {
+        for (int i = 0; i < Math.min(rowCount, bits.length); i++) {
+            setRow(i, bits[i]);
+        }
+    }
+
+    public int getRow(int row) {
+        return type == Type.KEYPAD ? pressed[row] : frame.get(row);
+    }
+
+    /**
+     * @return label printed on common 4x4/4x3 membrane keypads, 'row:col' for other sizes
+     */
+    public String getKeyLabel(int row, int col) {
+        if (rowCount == 4 && colCount == 4) {
+            return String.valueOf(KEYS_4X4.charAt(row * 4 + col));
+        }
+        if (rowCount == 4 && colCount == 3) {
+            return String.valueOf(KEYS_4X3.charAt(row * 3 + col));
+        }
+        return row + ":" + col;
+    }
+
+    /**
+     * Switch everything off before pins are released
+     */
+    public void clear() {
+        rows.write(type == Type.KEYPAD ? rowMask : 0);
+    }
+
+    // row was selected on previous tick, so lines had whole tick to settle
+    private void scanKeys() {
+        int raw = ~cols.read() & colMask;
+        int base = row * colCount;
+        for (int col = 0; col < colCount; col++) {
+            int index = base + col;
+            boolean down = (raw & (1 << col)) != 0;
+            int counter = counters[index];
+            if (down ? counter == debounceScans : counter == 0) {
+                continue;
+            }
+            counter += down ? 1 : -1;
+            counters[index] = counter;
+            boolean wasPressed = (pressed[row] & (1 << col)) != 0;
+            if (counter == debounceScans && !wasPressed) {
+                pressed[row] |= 1 << col;
+                listener.onKey(this, row, col, true);
+            } else if (counter == 0 && wasPressed) {
+                pressed[row] &= ~(1 << col);
+                listener.onKey(this, row, col, false);
+            }
+        }
+        row = row + 1 == rowCount ? 0 : row + 1;
+        rows.drain(1 << row);
+    }
+
+    private void refreshRow() {
+        // blank before switching row to avoid ghosting
+        rows.write(0);
+        row = row + 1 == rowCount ? 0 : row + 1;
+        cols.write(~frame.get(row) & colMask);
+        rows.write(1 << row);
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + type + " " + rowCount + "x" + colCount + ")";
+    }
+
+    public enum Type {
+        KEYPAD, LED
+    }
+
+    public interface KeyListener {
+
+        /**
+         * Called from scan thread, must be short
+         */
+        void onKey(GpioMatrix matrix, int row, int col, boolean pressed);
+    }
+}
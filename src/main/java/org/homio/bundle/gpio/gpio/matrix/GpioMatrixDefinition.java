@@ -0,0 +1,57 @@
+package org.homio.bundle.gpio.gpio.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.homio.bundle.gpio.gpio.matrix.GpioMatrix.Type;
+
+@Getter
+@Log4j2
+@RequiredArgsConstructor
+public class GpioMatrixDefinition {
+
+    private static final int MAX_LINES = 16;
+
+    private final String name;
+    private final Type type;
+    private final int[] rows;
+    private final int[] cols;
+
+    /**
+     * Parse matrices in format 'name:KEYPAD|LED:row,row,.../col,col,...' separated by ';' or new line. Invalid lines are logged and
+     * skipped
+     */
+    public static List<GpioMatrixDefinition> parse(String matrices) {
+        List<GpioMatrixDefinition> result = new ArrayList<>();
+        for (String line : StringUtils.split(StringUtils.defaultString(matrices), ";\n")) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            try {
+                String[] parts = line.trim().split(":");
+                String[] lines = parts.length == 3 ? parts[2].split("/") : new String[0];
+                if (lines.length != 2) {
+                    throw new IllegalArgumentException("expected 'name:type:rows/cols'");
+                }
+                int[] rows = parsePins(lines[0]);
+                int[] cols = parsePins(lines[1]);
+                result.add(new GpioMatrixDefinition(parts[0].trim(), Type.valueOf(parts[1].trim().toUpperCase()), rows, cols));
+            } catch (Exception ex) {
+                log.warn("Skip gpio matrix '{}': {}", line, ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static int[] parsePins(String value) {
+        int[] pins = Stream.of(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        if (pins.length == 0 || pins.length > MAX_LINES) {
+            throw new IllegalArgumentException("expected 1.." + MAX_LINES + " pins in " + value);
+        }
+        return pins;
+    }
+}
@@ -0,0 +1,19 @@
+package org.homio.bundle.gpio.gpio.matrix;
+
+/**
+ * Group of digital pins accessed as one word, bit i - pin i of group
+ */
+public interface GpioPort {
+
+    void write(int bits);
+
+    int read();
+
+    /**
+     * Drive pins of 'low' bits LOW and release others to input, so pressed keys of one column can't short rows. Next write()
+     * turns all pins back to outputs. Ports which can't switch pin direction drive released pins HIGH
+     */
+    default void drain(int low) {
+        write(~low);
+    }
+}
@@ -0,0 +1,121 @@
+package org.homio.bundle.gpio.gpio.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Opt-in edge latency tracer. Every stage of edge processing(dispatch, each listener, workspace lock signal, total) is stored
+ * into ring buffer relative to edge timestamp taken in mode factory callback, and into per pin/stage histograms. Slot is published
+ * as one immutable entry, so concurrent dump never sees half written record.
+ */
+public class GpioEdgeTracer {
+
+    private static final int CAPACITY = 4096;
+
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Integer, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+    @Getter
+    @Setter
+    private volatile boolean enabled;
+
+    public void record(int address, Stage stage, String name, long edgeNanos, long latencyNanos) {
+        long seq = sequence.getAndIncrement();
+        entries.set((int) (seq & (CAPACITY - 1)), new Entry(seq, address, stage, name, edgeNanos, latencyNanos));
+        histograms.computeIfAbsent(address, key -> createHistograms())[stage.ordinal()].record(latencyNanos);
+    }
+
+    public void clear() {
+        histograms.clear();
+        sequence.set(0);
+    }
+
+    public Dump dump() {
+        Dump dump = new Dump();
+        long last = sequence.get();
+        for (long seq = Math.max(0, last - CAPACITY); seq < last; seq++) {
+            Entry entry = entries.get((int) (seq & (CAPACITY - 1)));
+            // slot not written yet, already overwritten by newer record or left from before clear()
+            if (entry != null && entry.seq == seq) {
+                dump.records.add(new Record().setAddress(entry.address).setStage(entry.stage).setName(entry.name)
+                                             .setEdge(entry.edge).setLatency(entry.latency / 1000D));
+            }
+        }
+        for (Map.Entry<Integer, LatencyHistogram[]> entry : histograms.entrySet()) {
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram histogram = entry.getValue()[stage.ordinal()];
+                if (histogram.getCount() > 0) {
+                    dump.summaries.add(new GpioMetric().setName("pin." + entry.getKey() + "." + stage.name().toLowerCase())
+                                                       .setType("trace").setCount(histogram.getCount())
+                                                       .setMean(histogram.getMean() / 1000D)
+                                                       .setP50(histogram.getPercentile(50) / 1000D)
+                                                       .setP90(histogram.getPercentile(90) / 1000D)
+                                                       .setP99(histogram.getPercentile(99) / 1000D)
+                                                       .setMax(histogram.getMax() / 1000D));
+                }
+            }
+        }
+        dump.summaries.sort(null);
+        return dump;
+    }
+
+    private static LatencyHistogram[] createHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    public enum Stage {
+        // edge callback until first listener
+        DISPATCH,
+        // single listener execution, name contains listener key
+        LISTENER,
+        // state waiter(workspace BroadcastLock signal), name contains waiter name
+        LOCK_SIGNAL,
+        // edge callback until all listeners finished
+        TOTAL
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+
+        private final long seq;
+        private final int address;
+        private final Stage stage;
+        private final String name;
+        private final long edge;
+        private final long latency;
+    }
+
+    @Getter
+    public static class Dump {
+
+        private final List<Record> records = new ArrayList<>();
+        private final List<GpioMetric> summaries = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    @Accessors(chain = true)
+    public static class Record {
+
+        private int address;
+        private Stage stage;
+        private String name;
+        // System.nanoTime() of edge
+        private long edge;
+        // microseconds
+        private double latency;
+    }
+}
@@ -0,0 +1,54 @@
+package org.homio.bundle.gpio.gpio.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.homio.bundle.api.model.HasEntityIdentifier;
+import org.homio.bundle.api.ui.field.UIField;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Metric snapshot row. Latency values are in microseconds
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class GpioMetric implements HasEntityIdentifier, Comparable<GpioMetric> {
+
+    @UIField(order = 1)
+    private String name;
+
+    @UIField(order = 2)
+    private String type;
+
+    @UIField(order = 3)
+    private long count;
+
+    @UIField(order = 4, label = "Rate/s")
+    private double rate;
+
+    @UIField(order = 5, label = "Mean(µs)")
+    private double mean;
+
+    @UIField(order = 6, label = "P50(µs)")
+    private double p50;
+
+    @UIField(order = 7, label = "P90(µs)")
+    private double p90;
+
+    @UIField(order = 8, label = "P99(µs)")
+    private double p99;
+
+    @UIField(order = 9, label = "Max(µs)")
+    private double max;
+
+    @Override
+    public String getEntityID() {
+        return name;
+    }
+
+    @Override
+    public int compareTo(@NotNull GpioMetric o) {
+        return this.name.compareTo(o.name);
+    }
+}
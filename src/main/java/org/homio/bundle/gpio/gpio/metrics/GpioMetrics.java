@@ -0,0 +1,96 @@
+package org.homio.bundle.gpio.gpio.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per service registry of counters, gauges and latency timers. Hot paths must resolve counter/timer once and keep reference
+ */
+public class GpioMetrics {
+
+    public static final String PIN_EVENTS = "pin.%d.events";
+    public static final String PIN_LISTENERS = "pin.%d.listeners";
+    public static final String VARIABLE_WRITE = "variable.write";
+    public static final String DS18B20_READ = "ds18b20.read";
+    public static final String PIN_REJECTED = "pin.%d.rejected";
+    public static final String PIN_DEFERRED = "pin.%d.deferred";
+    public static final String PIN_SENSOR_ERRORS = "pin.%d.sensor.errors";
+    public static final String PIN_PROVISION = "pin.provision";
+    public static final String REMOTE_RTT = "remote.rtt";
+    public static final String PROVIDER_SWAP = "provider.swap";
+    public static final String SIMULATED_EVENTS = "sim.events";
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public List<GpioMetric> snapshot() {
+        List<GpioMetric> list = new ArrayList<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            list.add(new GpioMetric().setName(entry.getKey()).setType("counter").setCount(counter.getCount()).setRate(counter.rate()));
+        }
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            list.add(new GpioMetric().setName(entry.getKey()).setType("gauge").setCount(entry.getValue().getAsLong()));
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : timers.entrySet()) {
+            LatencyHistogram timer = entry.getValue();
+            list.add(new GpioMetric().setName(entry.getKey()).setType("timer").setCount(timer.getCount())
+                                     .setMean(toMicros(timer.getMean()))
+                                     .setP50(toMicros(timer.getPercentile(50)))
+                                     .setP90(toMicros(timer.getPercentile(90)))
+                                     .setP99(toMicros(timer.getPercentile(99)))
+                                     .setMax(toMicros(timer.getMax())));
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    private static double toMicros(long nanos) {
+        return Math.round(nanos / 100D) / 10D;
+    }
+
+    public static class Counter {
+
+        private final LongAdder adder = new LongAdder();
+        private long lastCount;
+        private long lastTime = System.nanoTime();
+
+        public void increment() {
+            adder.increment();
+        }
+
+        public long getCount() {
+            return adder.sum();
+        }
+
+        /**
+         * @return events per second since previous call
+         */
+        private synchronized double rate() {
+            long now = System.nanoTime();
+            long count = adder.sum();
+            double rate = (count - lastCount) * 1_000_000_000D / Math.max(1, now - lastTime);
+            lastCount = count;
+            lastTime = now;
+            return Math.round(rate * 100) / 100D;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package org.homio.bundle.gpio.gpio.mode;
 
 import com.pi4j.context.Context;
 import com.pi4j.io.gpio.analog.AnalogInput;
-import java.util.function.Consumer;
 import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
 import org.homio.bundle.gpio.gpio.GpioState;
 import org.homio.bundle.api.exception.ProhibitedExecution;
@@ -19,16 +18,19 @@ public class AnalogInputModeFactory implements GpioModeFactory<AnalogInput> {
                                                      .provider(gpioProvidersIdModel.getAnalogInputProviderId())
                                                      .build())
                                   .addListener(event -> {
+                                      long edgeNanos = System.nanoTime();
                                       DecimalType state = new DecimalType(event.value(), event.oldValue());
                                       if (state.equalToOldValue()) {
-                                          gpioState.setLastState(state);
-                                          for (Consumer<State> listener : gpioState.getListeners().values()) {
-                                              listener.accept(state);
-                                          }
+                                          gpioState.updateState(state, edgeNanos);
                                       }
                                   }));
     }
 
+    @Override
+    public boolean isPollRequired() {
+        return true;
+    }
+
     @Override
     public State getState(AnalogInput instance) {
         return new DecimalType(instance.value());
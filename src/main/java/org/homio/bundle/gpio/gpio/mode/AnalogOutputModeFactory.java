@@ -2,7 +2,7 @@ package org.homio.bundle.gpio.gpio.mode;
 
 import com.pi4j.context.Context;
 import com.pi4j.io.gpio.analog.AnalogOutput;
-import java.util.function.Consumer;
+import com.pi4j.io.gpio.analog.AnalogOutputConfigBuilder;
 import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
 import org.homio.bundle.gpio.gpio.GpioState;
 import org.homio.bundle.api.exception.ProhibitedExecution;
@@ -13,18 +13,20 @@ public class AnalogOutputModeFactory implements GpioModeFactory<AnalogOutput> {
 
     @Override
     public void createGpioState(Context pi4j, GpioState gpioState, GpioProviderIdModel gpioProviderIdModel) {
-        gpioState.setInstance(pi4j.create(AnalogOutput.newConfigBuilder(pi4j)
-                                                      .name(gpioState.getGpioPin().getName())
-                                                      .address(gpioState.getGpioPin().getAddress())
-                                                      .provider(gpioProviderIdModel.getAnalogOutputProviderId())
-                                                      .build())
+        AnalogOutputConfigBuilder builder = AnalogOutput.newConfigBuilder(pi4j)
+                                                        .name(gpioState.getGpioPin().getName())
+                                                        .address(gpioState.getGpioPin().getAddress())
+                                                        .provider(gpioProviderIdModel.getAnalogOutputProviderId());
+        // state restored from snapshot
+        if (gpioState.getLastState() != null) {
+            builder.initial(gpioState.getLastState().intValue());
+        }
+        gpioState.setInstance(pi4j.create(builder.build())
                                   .addListener(event -> {
+                                      long edgeNanos = System.nanoTime();
                                       DecimalType state = new DecimalType(event.value(), event.oldValue());
                                       if (state.equalToOldValue()) {
-                                          gpioState.setLastState(state);
-                                          for (Consumer<State> listener : gpioState.getListeners().values()) {
-                                              listener.accept(state);
-                                          }
+                                          gpioState.updateState(state, edgeNanos);
                                       }
                                   }));
     }
@@ -3,9 +3,9 @@ package org.homio.bundle.gpio.gpio.mode;
 import com.pi4j.context.Context;
 import com.pi4j.io.gpio.digital.DigitalInput;
 import java.util.Objects;
-import java.util.function.Consumer;
 import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
 import org.homio.bundle.gpio.gpio.GpioState;
+import org.homio.bundle.gpio.gpio.gpiochip.GpioChipStateChangeEvent;
 import org.homio.bundle.api.exception.ProhibitedExecution;
 import org.homio.bundle.api.state.OnOffType;
 import org.homio.bundle.api.state.State;
@@ -21,12 +21,11 @@ public class DigitalInputModeFactory implements GpioModeFactory<DigitalInput> {
                                                       .provider(gpioProvidersIdModel.getDigitalInputProviderId())
                                                       .build())
                                   .addListener(event -> {
+                                      long edgeNanos = event instanceof GpioChipStateChangeEvent
+                                          ? ((GpioChipStateChangeEvent) event).getTimestampNanos() : System.nanoTime();
                                       OnOffType state = OnOffType.of(event.state().isHigh());
                                       if (!Objects.equals(gpioState.getLastState(), state)) {
-                                          gpioState.setLastState(state);
-                                          for (Consumer<State> listener : gpioState.getListeners().values()) {
-                                              listener.accept(state);
-                                          }
+                                          gpioState.updateState(state, edgeNanos);
                                       }
                                   }));
     }
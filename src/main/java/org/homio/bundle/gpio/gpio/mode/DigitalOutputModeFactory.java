@@ -2,8 +2,9 @@ package org.homio.bundle.gpio.gpio.mode;
 
 import com.pi4j.context.Context;
 import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalOutputConfigBuilder;
+import com.pi4j.io.gpio.digital.DigitalState;
 import java.util.Objects;
-import java.util.function.Consumer;
 import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
 import org.homio.bundle.gpio.gpio.GpioState;
 import org.homio.bundle.api.exception.ProhibitedExecution;
@@ -14,18 +15,20 @@ public class DigitalOutputModeFactory implements GpioModeFactory<DigitalOutput>
 
     @Override
     public void createGpioState(Context pi4j, GpioState gpioState, GpioProviderIdModel gpioProviderIdModel) {
-        gpioState.setInstance(pi4j.create(DigitalOutput.newConfigBuilder(pi4j)
-                                                       .name(gpioState.getGpioPin().getName())
-                                                       .address(gpioState.getGpioPin().getAddress())
-                                                       .provider(gpioProviderIdModel.getDigitalOutputProviderId())
-                                                       .build())
+        DigitalOutputConfigBuilder builder = DigitalOutput.newConfigBuilder(pi4j)
+                                                          .name(gpioState.getGpioPin().getName())
+                                                          .address(gpioState.getGpioPin().getAddress())
+                                                          .provider(gpioProviderIdModel.getDigitalOutputProviderId());
+        // state restored from snapshot
+        if (gpioState.getLastState() != null) {
+            builder.initial(gpioState.getLastState().boolValue() ? DigitalState.HIGH : DigitalState.LOW);
+        }
+        gpioState.setInstance(pi4j.create(builder.build())
                                   .addListener(event -> {
+                                      long edgeNanos = System.nanoTime();
                                       OnOffType state = OnOffType.of(event.state().isHigh());
                                       if (!Objects.equals(gpioState.getLastState(), state)) {
-                                          gpioState.setLastState(state);
-                                          for (Consumer<State> listener : gpioState.getListeners().values()) {
-                                              listener.accept(state);
-                                          }
+                                          gpioState.updateState(state, edgeNanos);
                                       }
                                   }));
     }
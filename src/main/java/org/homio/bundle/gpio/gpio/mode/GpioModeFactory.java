@@ -14,6 +14,13 @@ public interface GpioModeFactory<T extends IO> {
 
     void setState(T instance, State state);
 
+    /**
+     * @return true if provider doesn't fire change events for this mode and state has to be polled
+     */
+    default boolean isPollRequired() {
+        return false;
+    }
+
     default void destroy(GpioState gpioState) {
 
     }
@@ -10,8 +10,15 @@ public enum PinMode {
     PWM(new PwmModeFactory()),
     ANALOG_INPUT(new AnalogInputModeFactory()),
     ANALOG_OUTPUT(new AnalogOutputModeFactory()),
-    ONE_WIRE(null);
+    ONE_WIRE(null),
+    // bit-banged sensors, read by GpioBitBangEngine instead of pi4j
+    DHT22(null),
+    ULTRASONIC(null);
 
     @Getter
     private final GpioModeFactory gpioModeFactory;
+
+    public boolean isBitBang() {
+        return this == DHT22 || this == ULTRASONIC;
+    }
 }
@@ -0,0 +1,205 @@
+package org.homio.bundle.gpio.gpio.record;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+
+/**
+ * Append-only binary log of pin events split into segments. Oldest segments are deleted once total size exceeds limit, so disk
+ * usage is bounded. Segment: 16 byte header(magic, version, base epoch nanos) followed by records:
+ * varint nanos since previous record, head byte(0x80 - analog, address << 1 | level) and float value for analog records.
+ * Edge takes up to 5 bytes and analog value up to 9 bytes while events are less than 268ms apart
+ */
+@Log4j2
+public class GpioEventRecorder implements Closeable {
+
+    public static final String EXTENSION = ".gpl";
+
+    private static final int MAGIC = 0x47504C47;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ANALOG = 0x80;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final int SEGMENTS = 8;
+
+    private final Path dir;
+    private final long maxBytes;
+    private final long segmentSize;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // epoch nanos = epochBase + System.nanoTime()
+    private final long epochBase = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+    private FileChannel channel;
+    private long sequence;
+    private long segmentBytes;
+    private long lastNanos;
+    private boolean closed;
+
+    public GpioEventRecorder(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.segmentSize = Math.max(MIN_SEGMENT_SIZE, maxBytes / SEGMENTS);
+        Files.createDirectories(dir);
+        List<Path> segments = listSegments(dir);
+        this.sequence = segments.isEmpty() ? 0 : parseSequence(segments.get(segments.size() - 1));
+        openSegment();
+    }
+
+    /**
+     * Called from pin listeners of any thread
+     */
+    public synchronized void record(int address, State state) {
+        if (closed) {
+            return;
+        }
+        long nanos = epochBase + System.nanoTime();
+        long delta = Math.max(0, nanos - lastNanos);
+        lastNanos = nanos;
+        // varint(10) + head + float
+        if (buffer.remaining() < 15) {
+            flush();
+        }
+        while (delta >= 0x80) {
+            buffer.put((byte) (delta | 0x80));
+            delta >>>= 7;
+        }
+        buffer.put((byte) delta);
+        if (state instanceof OnOffType) {
+            buffer.put((byte) (address << 1 | (state.boolValue() ? 1 : 0)));
+        } else {
+            buffer.put((byte) (ANALOG | address << 1));
+            buffer.putFloat(state.floatValue());
+        }
+    }
+
+    /**
+     * Write buffered records. Called periodically and when buffer is full
+     */
+    public synchronized void flush() {
+        if (closed || buffer.position() == 0) {
+            return;
+        }
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segmentBytes += channel.write(buffer);
+            }
+            buffer.clear();
+            if (segmentBytes >= segmentSize) {
+                channel.close();
+                openSegment();
+            }
+        } catch (IOException ex) {
+            log.error("Gpio event recording stopped: {}", ex.getMessage());
+            closed = true;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            log.warn("Unable to close gpio event log: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Read all records of log directory or single segment in order
+     */
+    public static void read(Path path, EventConsumer consumer) throws IOException {
+        for (Path segment : Files.isDirectory(path) ? listSegments(path) : List.of(path)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+            if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC || data.getShort() != VERSION) {
+                log.warn("Skip gpio event log {}: wrong header", segment);
+                continue;
+            }
+            data.getShort();
+            long nanos = data.getLong();
+            while (data.hasRemaining()) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data.get();
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0 && data.hasRemaining());
+                if (!data.hasRemaining()) {
+                    // record cut by crash
+                    break;
+                }
+                nanos += delta;
+                int head = data.get() & 0xFF;
+                int address = (head & ~ANALOG) >> 1;
+                if ((head & ANALOG) != 0) {
+                    if (data.remaining() < 4) {
+                        break;
+                    }
+                    consumer.accept(nanos, address, true, data.getFloat());
+                } else {
+                    consumer.accept(nanos, address, false, head & 1);
+                }
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        channel = FileChannel.open(dir.resolve(String.format("%08d", sequence) + EXTENSION), CREATE_NEW, APPEND);
+        lastNanos = epochBase + System.nanoTime();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(lastNanos);
+        header.flip();
+        channel.write(header);
+        segmentBytes = HEADER_SIZE;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = listSegments(dir);
+        long total = 0;
+        for (Path segment : segments) {
+            total += Files.size(segment);
+        }
+        // current segment is last one and is kept
+        for (int i = 0; i < segments.size() - 1 && total + segmentSize > maxBytes; i++) {
+            total -= Files.size(segments.get(i));
+            Files.delete(segments.get(i));
+        }
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long parseSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+    }
+
+    public interface EventConsumer {
+
+        /**
+         * @param epochNanos - event time
+         * @param value - 0/1 for digital events
+         */
+        void accept(long epochNanos, int address, boolean analog, double value);
+    }
+}
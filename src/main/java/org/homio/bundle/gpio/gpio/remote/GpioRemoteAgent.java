@@ -0,0 +1,184 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import com.pi4j.Pi4J;
+import com.pi4j.context.Context;
+import com.pi4j.context.impl.DefaultContext;
+import com.pi4j.io.gpio.digital.PullResistance;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.api.state.DecimalType;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.GpioEntity;
+import org.homio.bundle.gpio.RaspberryGpioPin;
+import org.homio.bundle.gpio.gpio.GPIOService;
+import org.homio.bundle.gpio.gpio.GpioProviderIdModel;
+import org.homio.bundle.gpio.gpio.GpioState;
+import org.homio.bundle.gpio.gpio.metrics.LatencyHistogram;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+
+/**
+ * Lightweight gpio node. Exposes local Pi4J context to single hub connection, newer connection replaces older one.
+ * Provisioned pins survive reconnects so outputs keep their values while hub is away
+ */
+@Log4j2
+public class GpioRemoteAgent implements Closeable {
+
+    private final Context pi4j;
+    private final GpioProviderIdModel providerModel;
+    private final ServerSocket serverSocket;
+    private final Map<Integer, GpioState> pins = new ConcurrentHashMap<>();
+    @Getter
+    private final LatencyHistogram roundTrip = new LatencyHistogram();
+    private volatile GpioRemoteConnection session;
+    private volatile boolean closed;
+
+    public GpioRemoteAgent(Context pi4j, GpioProviderIdModel providerModel, int port) throws IOException {
+        this.pi4j = pi4j;
+        this.providerModel = providerModel;
+        this.serverSocket = new ServerSocket(port);
+        Thread thread = new Thread(this::acceptLoop, "gpio-agent");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Usage: GpioRemoteAgent [port] [--mock]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = GpioRemoteProtocol.DEFAULT_PORT;
+        boolean mock = GpioEntity.BOARD_TYPE.equals("UNKNOWN");
+        for (String arg : args) {
+            if (arg.equals("--mock")) {
+                mock = true;
+            } else {
+                port = Integer.parseInt(arg);
+            }
+        }
+        Context pi4j = mock ? GPIOService.createMockContext() : Pi4J.newAutoContext();
+        GpioRemoteAgent agent = new GpioRemoteAgent(pi4j, GpioEntity.getProviderModel(mock ? "MOCK" : "RPI"), port);
+        log.info("Gpio agent listening on port {}", agent.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            agent.close();
+            pi4j.shutdown();
+        }));
+        Thread.currentThread().join();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public Map<Integer, GpioState> getPins() {
+        return pins;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        GpioRemoteConnection conn = session;
+        if (conn != null) {
+            conn.close();
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                GpioRemoteConnection conn = new GpioRemoteConnection(socket, GpioRemoteProtocol.STATE, this::onFrame, roundTrip, null);
+                GpioRemoteConnection previous = session;
+                session = conn;
+                if (previous != null) {
+                    previous.close();
+                }
+                conn.start("gpio-agent-" + socket.getPort());
+                log.info("Hub connected: {}", socket.getRemoteSocketAddress());
+            } catch (IOException ex) {
+                if (!closed) {
+                    log.warn("Unable to accept hub connection: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void onFrame(byte type, ByteBuffer payload) {
+        if (type == GpioRemoteProtocol.PROVISION) {
+            int address = payload.get();
+            PinMode mode = PinMode.values()[payload.get()];
+            int pull = payload.get();
+            provision(address, mode, pull < 0 ? null : PullResistance.values()[pull]);
+        } else if (type == GpioRemoteProtocol.SET) {
+            GpioRemoteProtocol.readBatch(payload, this::setValue);
+        } else if (type == GpioRemoteProtocol.RELEASE) {
+            release(payload.get());
+        }
+    }
+
+    private synchronized void release(int address) {
+        GpioState gpioState = pins.remove(address);
+        if (gpioState != null) {
+            gpioState.getInstance().shutdown(pi4j);
+            ((DefaultContext) pi4j).shutdown(gpioState.getInstance().id());
+            log.info("Released remote gpio: {}", gpioState);
+        }
+    }
+
+    private synchronized void provision(int address, PinMode mode, PullResistance pull) {
+        GpioState gpioState = pins.get(address);
+        if (gpioState == null || gpioState.getPinMode() != mode || gpioState.getPull() != pull) {
+            if (gpioState != null) {
+                gpioState.getInstance().shutdown(pi4j);
+                ((DefaultContext) pi4j).shutdown(gpioState.getInstance().id());
+            }
+            gpioState = new GpioState(log, RaspberryGpioPin.getPin(address).getGpioPin(), mode, pull);
+            mode.getGpioModeFactory().createGpioState(pi4j, gpioState, providerModel);
+            gpioState.getListeners().put("remote", state -> {
+                GpioRemoteConnection conn = session;
+                if (conn != null) {
+                    conn.queue(address, toValue(mode, state));
+                }
+            });
+            pins.put(address, gpioState);
+            log.info("Provisioned remote gpio: {}", gpioState);
+        }
+        // let hub know current value
+        State state = gpioState.getLastState();
+        if (state == null && mode == PinMode.DIGITAL_INPUT) {
+            state = mode.getGpioModeFactory().getState(gpioState.getInstance());
+        }
+        GpioRemoteConnection conn = session;
+        if (state != null && conn != null) {
+            conn.queue(address, toValue(mode, state));
+        }
+    }
+
+    private void setValue(int address, int value) {
+        GpioState gpioState = pins.get(address);
+        if (gpioState == null) {
+            log.warn("Unable to set value for not provisioned pin: {}", address);
+            return;
+        }
+        PinMode mode = gpioState.getPinMode();
+        State state = mode == PinMode.DIGITAL_OUTPUT ? OnOffType.of(value != 0) : new DecimalType(value);
+        mode.getGpioModeFactory().setState(gpioState.getInstance(), state);
+    }
+
+    private static int toValue(PinMode mode, State state) {
+        if (mode == PinMode.DIGITAL_INPUT || mode == PinMode.DIGITAL_OUTPUT) {
+            return state.boolValue() ? 1 : 0;
+        }
+        return state.intValue();
+    }
+}
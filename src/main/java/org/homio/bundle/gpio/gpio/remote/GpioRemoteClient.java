@@ -0,0 +1,210 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.homio.bundle.gpio.gpio.metrics.LatencyHistogram;
+
+/**
+ * Hub side of remote gpio node. Keeps link alive with reconnect backoff and replays pin provisioning and last output levels
+ * after reconnect
+ */
+@Log4j2
+public class GpioRemoteClient implements Closeable {
+
+    private static final long MAX_RECONNECT_DELAY = 30000;
+
+    private final String host;
+    private final int port;
+    @Getter
+    private final LatencyHistogram roundTrip;
+    // address -> PROVISION payload
+    private final Map<Integer, byte[]> provisions = new ConcurrentHashMap<>();
+    // address -> last commanded output level, hub state already reports it so node must get it after reconnect
+    private final Map<Integer, Integer> levels = new ConcurrentHashMap<>();
+    private final Map<Integer, IntConsumer> stateConsumers = new ConcurrentHashMap<>();
+    private final Object connectLock = new Object();
+    // provision/release and replay after reconnect are ordered by this lock, so no pin is missed by replay
+    private final Object provisionLock = new Object();
+    private volatile GpioRemoteConnection connection;
+    private volatile boolean closed;
+
+    public GpioRemoteClient(String host, int port, LatencyHistogram roundTrip) {
+        this.host = host;
+        this.port = port;
+        this.roundTrip = roundTrip;
+        Thread thread = new Thread(this::connectLoop, "gpio-remote-" + host + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @param address - 'host' or 'host:port'
+     */
+    public static GpioRemoteClient create(String address, LatencyHistogram roundTrip) {
+        if (StringUtils.isEmpty(address)) {
+            throw new IllegalArgumentException("Remote gpio node address is not set");
+        }
+        String host = StringUtils.substringBefore(address, ":");
+        String port = StringUtils.substringAfter(address, ":");
+        return new GpioRemoteClient(host, port.isEmpty() ? GpioRemoteProtocol.DEFAULT_PORT : Integer.parseInt(port), roundTrip);
+    }
+
+    public boolean isConnected() {
+        GpioRemoteConnection conn = connection;
+        return conn != null && !conn.isClosed();
+    }
+
+    public boolean awaitConnected(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (connectLock) {
+            while (!isConnected()) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                connectLock.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    public void provision(int address, int mode, int pull) {
+        byte[] payload = new byte[]{(byte) address, (byte) mode, (byte) pull};
+        synchronized (provisionLock) {
+            provisions.put(address, payload);
+            send(GpioRemoteProtocol.PROVISION, payload);
+        }
+    }
+
+    public void unProvision(int address) {
+        stateConsumers.remove(address);
+        synchronized (provisionLock) {
+            levels.remove(address);
+            if (provisions.remove(address) != null) {
+                send(GpioRemoteProtocol.RELEASE, new byte[]{(byte) address});
+            }
+        }
+    }
+
+    /**
+     * Queue output value. Values are sent as batch, while node is offline only last value per pin is kept and sent after reconnect
+     */
+    public void set(int address, int value) {
+        // ordered with replay, otherwise value set between replay and publishing of connection would be lost
+        synchronized (provisionLock) {
+            levels.put(address, value);
+            GpioRemoteConnection conn = connection;
+            if (conn == null || conn.isClosed()) {
+                log.debug("Remote gpio node {}:{} is offline. Value {} of pin {} is sent after reconnect", host, port, value, address);
+                return;
+            }
+            conn.queue(address, value);
+        }
+    }
+
+    public void addStateConsumer(int address, IntConsumer consumer) {
+        stateConsumers.put(address, consumer);
+    }
+
+    public void removeStateConsumer(int address) {
+        stateConsumers.remove(address);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        GpioRemoteConnection conn = connection;
+        if (conn != null) {
+            conn.close();
+        }
+        synchronized (connectLock) {
+            connectLock.notifyAll();
+        }
+    }
+
+    private void onFrame(byte type, ByteBuffer payload) {
+        if (type == GpioRemoteProtocol.STATE) {
+            GpioRemoteProtocol.readBatch(payload, (address, value) -> {
+                IntConsumer consumer = stateConsumers.get(address);
+                if (consumer != null) {
+                    consumer.accept(value);
+                }
+            });
+        }
+    }
+
+    private void connectLoop() {
+        long delay = 1000;
+        while (!closed) {
+            try {
+                if (!isConnected()) {
+                    connect();
+                    delay = 1000;
+                }
+                synchronized (connectLock) {
+                    while (isConnected() && !closed) {
+                        connectLock.wait();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (Exception ex) {
+                log.warn("Unable to connect to remote gpio node {}:{}. Retry in {}ms. Error: {}", host, port, delay, ex.getMessage());
+                sleep(delay);
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY);
+            }
+        }
+    }
+
+    private void connect() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), (int) GpioRemoteProtocol.HEARTBEAT_INTERVAL * 3);
+        GpioRemoteConnection conn = new GpioRemoteConnection(socket, GpioRemoteProtocol.SET, this::onFrame, roundTrip, () -> {
+            synchronized (connectLock) {
+                connectLock.notifyAll();
+            }
+        });
+        synchronized (provisionLock) {
+            for (byte[] payload : provisions.values()) {
+                conn.send(GpioRemoteProtocol.PROVISION, payload);
+            }
+            // batch is written after provisions once connection is started
+            levels.forEach(conn::queue);
+            conn.start("gpio-remote-" + host + ":" + port);
+            connection = conn;
+        }
+        log.info("Connected to remote gpio node {}:{}", host, port);
+        synchronized (connectLock) {
+            connectLock.notifyAll();
+        }
+    }
+
+    private void send(byte type, byte[] payload) {
+        GpioRemoteConnection conn = connection;
+        if (conn != null) {
+            try {
+                conn.send(type, payload);
+            } catch (IOException ex) {
+                // provisions are replayed after reconnect
+                conn.close();
+            }
+        }
+    }
+
+    private static void sleep(long delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import static org.homio.bundle.gpio.gpio.remote.GpioRemoteProtocol.BATCH_ENTRY_SIZE;
+import static org.homio.bundle.gpio.gpio.remote.GpioRemoteProtocol.BATCH_SIZE;
+import static org.homio.bundle.gpio.gpio.remote.GpioRemoteProtocol.HEARTBEAT;
+import static org.homio.bundle.gpio.gpio.remote.GpioRemoteProtocol.HEARTBEAT_ACK;
+import static org.homio.bundle.gpio.gpio.remote.GpioRemoteProtocol.HEARTBEAT_INTERVAL;
+import static org.homio.bundle.gpio.gpio.remote.GpioRemoteProtocol.MAX_FRAME;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.gpio.gpio.metrics.LatencyHistogram;
+
+/**
+ * One TCP link. Reader thread decodes frames and answers heartbeats, writer thread drains queued (address, value) pairs as a single
+ * batch frame per wakeup and sends heartbeat when link is idle. Missed heartbeats close the link through socket read timeout
+ */
+@Log4j2
+public class GpioRemoteConnection implements Closeable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final byte batchType;
+    private final FrameHandler handler;
+    private final Runnable onClose;
+    @Getter
+    private final LatencyHistogram roundTrip;
+
+    private final Object batchLock = new Object();
+    private int[] addresses = new int[BATCH_SIZE];
+    private int[] values = new int[BATCH_SIZE];
+    private int[] sendAddresses = new int[BATCH_SIZE];
+    private int[] sendValues = new int[BATCH_SIZE];
+    private int batchSize;
+    private long lastHeartbeat;
+    private volatile boolean closed;
+
+    public GpioRemoteConnection(Socket socket, byte batchType, FrameHandler handler, LatencyHistogram roundTrip, Runnable onClose)
+        throws IOException {
+        this.socket = socket;
+        this.batchType = batchType;
+        this.handler = handler;
+        this.roundTrip = roundTrip;
+        this.onClose = onClose;
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout((int) (HEARTBEAT_INTERVAL * 3));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    public void start(String name) {
+        startThread(name + "-read", this::readLoop);
+        startThread(name + "-write", this::writeLoop);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Queue value to be sent with next batch. Blocks if peer can't keep up and batch is full
+     */
+    public void queue(int address, int value) {
+        synchronized (batchLock) {
+            while (batchSize == addresses.length && !closed) {
+                try {
+                    batchLock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (closed) {
+                return;
+            }
+            addresses[batchSize] = address;
+            values[batchSize] = value;
+            batchSize++;
+            batchLock.notifyAll();
+        }
+    }
+
+    /**
+     * Write frame immediately bypassing batch queue
+     */
+    public void send(byte type, byte[] payload) throws IOException {
+        synchronized (out) {
+            out.writeInt(payload.length + 1);
+            out.writeByte(type);
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (batchLock) {
+            batchLock.notifyAll();
+        }
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+
+    private void readLoop() {
+        byte[] buffer = new byte[MAX_FRAME];
+        ByteBuffer payload = ByteBuffer.wrap(buffer);
+        try {
+            while (!closed) {
+                int length = in.readInt();
+                if (length < 1 || length > MAX_FRAME) {
+                    throw new IOException("Wrong frame length: " + length);
+                }
+                byte type = in.readByte();
+                in.readFully(buffer, 0, length - 1);
+                payload.clear().limit(length - 1);
+                if (type == HEARTBEAT) {
+                    writeHeartbeat(HEARTBEAT_ACK, payload.getLong());
+                } else if (type == HEARTBEAT_ACK) {
+                    roundTrip.recordSince(payload.getLong());
+                } else {
+                    try {
+                        handler.onFrame(type, payload);
+                    } catch (Exception ex) {
+                        log.warn("Unable to handle remote gpio frame: {}. Error: {}", type, ex.getMessage());
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            if (!closed) {
+                log.warn("Remote gpio link {} lost: {}", socket.getRemoteSocketAddress(), ex.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closed) {
+                int count;
+                synchronized (batchLock) {
+                    long wait = lastHeartbeat + HEARTBEAT_INTERVAL - System.currentTimeMillis();
+                    while (batchSize == 0 && !closed && wait > 0) {
+                        batchLock.wait(wait);
+                        wait = lastHeartbeat + HEARTBEAT_INTERVAL - System.currentTimeMillis();
+                    }
+                    int[] swap = addresses;
+                    addresses = sendAddresses;
+                    sendAddresses = swap;
+                    swap = values;
+                    values = sendValues;
+                    sendValues = swap;
+                    count = batchSize;
+                    batchSize = 0;
+                    batchLock.notifyAll();
+                }
+                if (count > 0) {
+                    writeBatch(count);
+                } else if (!closed) {
+                    lastHeartbeat = System.currentTimeMillis();
+                    writeHeartbeat(HEARTBEAT, System.nanoTime());
+                }
+            }
+        } catch (InterruptedException ignore) {
+        } catch (IOException ex) {
+            if (!closed) {
+                log.warn("Unable to write to remote gpio link {}: {}", socket.getRemoteSocketAddress(), ex.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void writeBatch(int count) throws IOException {
+        synchronized (out) {
+            out.writeInt(1 + 2 + count * BATCH_ENTRY_SIZE);
+            out.writeByte(batchType);
+            out.writeShort(count);
+            for (int i = 0; i < count; i++) {
+                out.writeByte(sendAddresses[i]);
+                out.writeInt(sendValues[i]);
+            }
+            out.flush();
+        }
+    }
+
+    private void writeHeartbeat(byte type, long nanos) throws IOException {
+        synchronized (out) {
+            out.writeInt(1 + Long.BYTES);
+            out.writeByte(type);
+            out.writeLong(nanos);
+            out.flush();
+        }
+    }
+
+    private static void startThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public interface FrameHandler {
+
+        void onFrame(byte type, ByteBuffer payload) throws Exception;
+    }
+}
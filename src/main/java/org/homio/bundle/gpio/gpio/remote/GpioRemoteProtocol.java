@@ -0,0 +1,43 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hub <-> node wire format. Every frame is [int length][byte type][payload], length covers type and payload.
+ * State/set frames are batches: [short count]([byte address][int value])*
+ */
+public final class GpioRemoteProtocol {
+
+    public static final int DEFAULT_PORT = 9123;
+    public static final int MAX_FRAME = 64 * 1024;
+    public static final int BATCH_SIZE = 256;
+    public static final int BATCH_ENTRY_SIZE = 5;
+    public static final long HEARTBEAT_INTERVAL = 1000;
+
+    // hub -> node: [byte address][byte mode][byte pull], pull -1 means not set
+    public static final byte PROVISION = 1;
+    // hub -> node: batch of output values
+    public static final byte SET = 2;
+    // node -> hub: batch of pin changes
+    public static final byte STATE = 3;
+    // both sides: [long nanos], answered with HEARTBEAT_ACK carrying the same nanos
+    public static final byte HEARTBEAT = 4;
+    public static final byte HEARTBEAT_ACK = 5;
+    // hub -> node: [byte address], pin is shut down on node
+    public static final byte RELEASE = 6;
+
+    private GpioRemoteProtocol() {
+    }
+
+    public static void readBatch(ByteBuffer payload, BatchConsumer consumer) {
+        int count = payload.getShort();
+        for (int i = 0; i < count; i++) {
+            consumer.accept(payload.get(), payload.getInt());
+        }
+    }
+
+    public interface BatchConsumer {
+
+        void accept(int address, int value);
+    }
+}
@@ -0,0 +1,64 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalInput;
+import com.pi4j.io.gpio.digital.DigitalInputBase;
+import com.pi4j.io.gpio.digital.DigitalInputConfig;
+import com.pi4j.io.gpio.digital.DigitalInputProvider;
+import com.pi4j.io.gpio.digital.DigitalInputProviderBase;
+import com.pi4j.io.gpio.digital.DigitalState;
+import com.pi4j.io.gpio.digital.DigitalStateChangeEvent;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+
+/**
+ * Digital inputs which live on remote gpio node. State is pushed by node, reads never touch network
+ */
+public class RemoteDigitalInputProvider extends DigitalInputProviderBase {
+
+    public static final String ID = "remote-digital-input";
+
+    private final GpioRemoteClient client;
+
+    public RemoteDigitalInputProvider(GpioRemoteClient client) {
+        this.id = ID;
+        this.name = "Remote Digital Input (GPIO) Provider";
+        this.client = client;
+    }
+
+    @Override
+    public DigitalInput create(DigitalInputConfig config) {
+        RemoteDigitalInput input = new RemoteDigitalInput(this, config);
+        int address = config.address();
+        client.addStateConsumer(address, input::remoteState);
+        client.provision(address, PinMode.DIGITAL_INPUT.ordinal(), config.pull() == null ? -1 : config.pull().ordinal());
+        return input;
+    }
+
+    private class RemoteDigitalInput extends DigitalInputBase {
+
+        private volatile DigitalState state = DigitalState.UNKNOWN;
+
+        RemoteDigitalInput(DigitalInputProvider provider, DigitalInputConfig config) {
+            super(provider, config);
+        }
+
+        @Override
+        public DigitalState state() {
+            return state;
+        }
+
+        @Override
+        public DigitalInput shutdown(Context context) {
+            client.unProvision(config.address());
+            return super.shutdown(context);
+        }
+
+        void remoteState(int value) {
+            DigitalState newState = value == 0 ? DigitalState.LOW : DigitalState.HIGH;
+            if (state != newState) {
+                state = newState;
+                dispatch(new DigitalStateChangeEvent(this, newState));
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.homio.bundle.gpio.gpio.remote;
+
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalOutputBase;
+import com.pi4j.io.gpio.digital.DigitalOutputConfig;
+import com.pi4j.io.gpio.digital.DigitalOutputProvider;
+import com.pi4j.io.gpio.digital.DigitalOutputProviderBase;
+import com.pi4j.io.gpio.digital.DigitalState;
+import org.homio.bundle.gpio.gpio.mode.PinMode;
+
+/**
+ * Digital outputs which live on remote gpio node. Writes are queued and sent to node as batch
+ */
+public class RemoteDigitalOutputProvider extends DigitalOutputProviderBase {
+
+    public static final String ID = "remote-digital-output";
+
+    private final GpioRemoteClient client;
+
+    public RemoteDigitalOutputProvider(GpioRemoteClient client) {
+        this.id = ID;
+        this.name = "Remote Digital Output (GPIO) Provider";
+        this.client = client;
+    }
+
+    @Override
+    public DigitalOutput create(DigitalOutputConfig config) {
+        client.provision(config.address(), PinMode.DIGITAL_OUTPUT.ordinal(), -1);
+        return new RemoteDigitalOutput(this, config);
+    }
+
+    private class RemoteDigitalOutput extends DigitalOutputBase {
+
+        RemoteDigitalOutput(DigitalOutputProvider provider, DigitalOutputConfig config) {
+            super(provider, config);
+        }
+
+        @Override
+        public DigitalOutput state(DigitalState state) {
+            if (state != DigitalState.UNKNOWN) {
+                client.set(config.address(), state.isHigh() ? 1 : 0);
+            }
+            return super.state(state);
+        }
+
+        @Override
+        public DigitalOutput shutdown(Context context) {
+            client.unProvision(config.address());
+            return super.shutdown(context);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.homio.bundle.gpio.gpio.rule;
+
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.gpio.timer.GpioTimerWheel;
+
+/**
+ * Compiled 'input:condition[@hold] -> output:action' rule
+ */
+@Getter
+@RequiredArgsConstructor
+public class GpioRule {
+
+    private final int input;
+    // null - any change
+    private final OnOffType condition;
+    private final long holdMillis;
+    private final int output;
+    private final Action action;
+
+    // pending held action, touched from edge callback and wheel thread
+    private volatile GpioTimerWheel.Timeout pending;
+
+    void fire(State state, GpioRuleContext context) {
+        if (holdMillis <= 0) {
+            context.write(output, action.apply(state, context.getLastState(output)));
+            return;
+        }
+        cancel();
+        pending = context.getTimerWheel().schedule(() -> context.writeAsync(output, action, state), holdMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void cancel() {
+        GpioTimerWheel.Timeout timeout = pending;
+        if (timeout != null) {
+            timeout.cancel();
+            pending = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return input + ":" + (condition == null ? "ANY" : condition.stringValue()) + (holdMillis > 0 ? "@" + holdMillis : "")
+            + " -> " + output + ":" + action;
+    }
+
+    public enum Action {
+        ON, OFF, TOGGLE, FOLLOW, INVERT;
+
+        public State apply(State input, State output) {
+            switch (this) {
+                case ON:
+                    return OnOffType.ON;
+                case OFF:
+                    return OnOffType.OFF;
+                case TOGGLE:
+                    return OnOffType.of(output == null || !output.boolValue());
+                case FOLLOW:
+                    return OnOffType.of(input.boolValue());
+                default:
+                    return OnOffType.of(!input.boolValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.homio.bundle.gpio.gpio.rule;
+
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.gpio.rule.GpioRule.Action;
+import org.homio.bundle.gpio.gpio.timer.GpioTimerWheel;
+
+/**
+ * What rules may touch. Implemented by GPIOService
+ */
+public interface GpioRuleContext {
+
+    /**
+     * Write output synchronously from edge callback
+     */
+    void write(int address, State state);
+
+    /**
+     * Write output from timer thread, action is evaluated right before write
+     */
+    void writeAsync(int address, Action action, State input);
+
+    /**
+     * @return last known state without hardware read
+     */
+    State getLastState(int address);
+
+    GpioTimerWheel getTimerWheel();
+}
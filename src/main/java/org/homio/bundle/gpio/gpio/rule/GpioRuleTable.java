@@ -0,0 +1,126 @@
+package org.homio.bundle.gpio.gpio.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+import org.homio.bundle.gpio.gpio.rule.GpioRule.Action;
+
+/**
+ * Per input pin dispatch table. Rules are split by edge direction at compile time so edge callback only walks matched array.
+ * Held rules of opposite direction are cancelled on every edge
+ */
+@Log4j2
+public class GpioRuleTable {
+
+    private static final GpioRule[] EMPTY = new GpioRule[0];
+
+    private final GpioRule[] onHigh;
+    private final GpioRule[] onLow;
+    private final GpioRule[] held;
+    private final GpioRuleContext context;
+
+    private GpioRuleTable(List<GpioRule> rules, GpioRuleContext context) {
+        this.context = context;
+        this.onHigh = rules.stream().filter(rule -> rule.getCondition() != OnOffType.OFF).toArray(GpioRule[]::new);
+        this.onLow = rules.stream().filter(rule -> rule.getCondition() != OnOffType.ON).toArray(GpioRule[]::new);
+        GpioRule[] heldRules = rules.stream().filter(rule -> rule.getHoldMillis() > 0).toArray(GpioRule[]::new);
+        this.held = heldRules.length == 0 ? EMPTY : heldRules;
+    }
+
+    /**
+     * Called from edge callback
+     */
+    public void dispatch(State state) {
+        for (GpioRule rule : held) {
+            rule.cancel();
+        }
+        for (GpioRule rule : state.boolValue() ? onHigh : onLow) {
+            try {
+                rule.fire(state, context);
+            } catch (Exception ex) {
+                log.warn("Gpio rule '{}' failed: {}", rule, ex.getMessage());
+            }
+        }
+    }
+
+    public void cancel() {
+        for (GpioRule rule : held) {
+            rule.cancel();
+        }
+    }
+
+    /**
+     * Parse rules in format 'input:ON|OFF|ANY[@holdMs] -> output:ON|OFF|TOGGLE|FOLLOW|INVERT' separated by ';' or new line.
+     * Invalid rules are logged and skipped
+     *
+     * @param inputs  - pins allowed as rule input
+     * @param outputs - pins allowed as rule output
+     * @return input address -> dispatch table
+     */
+    public static Map<Integer, GpioRuleTable> compile(String rules, Set<Integer> inputs, Set<Integer> outputs, GpioRuleContext context) {
+        Map<Integer, List<GpioRule>> byInput = new HashMap<>();
+        for (String line : StringUtils.split(StringUtils.defaultString(rules), ";\n")) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            try {
+                GpioRule rule = parse(line.trim());
+                if (!inputs.contains(rule.getInput())) {
+                    throw new IllegalArgumentException("pin " + rule.getInput() + " is not digital input");
+                }
+                if (!outputs.contains(rule.getOutput())) {
+                    throw new IllegalArgumentException("pin " + rule.getOutput() + " is not digital output");
+                }
+                byInput.computeIfAbsent(rule.getInput(), key -> new ArrayList<>()).add(rule);
+            } catch (Exception ex) {
+                log.warn("Skip gpio rule '{}': {}", line, ex.getMessage());
+            }
+        }
+        Map<Integer, GpioRuleTable> tables = new HashMap<>();
+        for (Map.Entry<Integer, List<GpioRule>> entry : byInput.entrySet()) {
+            tables.put(entry.getKey(), new GpioRuleTable(entry.getValue(), context));
+        }
+        return tables;
+    }
+
+    static GpioRule parse(String line) {
+        String[] parts = line.split("->");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("expected 'input:condition -> output:action'");
+        }
+        String[] input = parts[0].trim().split(":");
+        String[] output = parts[1].trim().split(":");
+        if (input.length != 2 || output.length != 2) {
+            throw new IllegalArgumentException("expected 'pin:value' on both sides");
+        }
+        String condition = StringUtils.substringBefore(input[1], "@").trim().toUpperCase();
+        String hold = StringUtils.substringAfter(input[1], "@").trim();
+        return new GpioRule(
+            Integer.parseInt(input[0].trim()),
+            condition.equals("ANY") ? null : OnOffType.of(parseOnOff(condition)),
+            hold.isEmpty() ? 0 : Long.parseLong(StringUtils.removeEnd(hold, "ms")),
+            Integer.parseInt(output[0].trim()),
+            Action.valueOf(output[1].trim().toUpperCase()));
+    }
+
+    private static boolean parseOnOff(String value) {
+        switch (value) {
+            case "ON":
+            case "HIGH":
+            case "1":
+                return true;
+            case "OFF":
+            case "LOW":
+            case "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("unknown condition: " + value);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.homio.bundle.gpio.gpio.sensor;
+
+import java.util.concurrent.TimeUnit;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+
+/**
+ * DHT22/AM2302 single wire protocol. Host pulls line low for 1.1ms and releases it, sensor answers with 80us low/80us high and 40
+ * bits, each is 50us low followed by 26us(0) or 70us(1) high. Values: temperature C, humidity %
+ */
+public class Dht22Sensor extends GpioBitBangSensor {
+
+    public static final int TEMPERATURE = 0;
+    public static final int HUMIDITY = 1;
+
+    // sensor doesn't allow sampling more often than once per 2s
+    private static final long MIN_INTERVAL = 2000;
+    private static final long RETRY_DELAY = 200;
+    private static final long START_NANOS = TimeUnit.MICROSECONDS.toNanos(1100);
+    // whole answer takes ~5ms
+    private static final long CAPTURE_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+    private static final long ONE_THRESHOLD = TimeUnit.MICROSECONDS.toNanos(48);
+    private static final int BITS = 40;
+    // response falling, rising, falling + rising/falling per bit
+    private static final int EDGES = 3 + BITS * 2;
+
+    // edge times of one answer, reused between samples
+    private final long[] edges = new long[EDGES];
+    private final byte[] data = new byte[5];
+
+    public Dht22Sensor(int address, GpioBitBangPin pin, GpioMetrics metrics) {
+        super(address, pin, MIN_INTERVAL, RETRY_DELAY, 2, metrics);
+    }
+
+    @Override
+    protected boolean sample(float[] result) {
+        pin.output(false);
+        busyWait(START_NANOS);
+        pin.input();
+        // capture first, decode after, so loop does nothing but sampling
+        int count = 0;
+        boolean level = true;
+        long deadline = System.nanoTime() + CAPTURE_NANOS;
+        long now;
+        while (count < EDGES && (now = System.nanoTime()) < deadline) {
+            if (pin.read() != level) {
+                level = !level;
+                edges[count++] = now;
+            }
+        }
+        if (count < EDGES) {
+            return false;
+        }
+        for (int i = 0; i < 5; i++) {
+            int value = 0;
+            for (int bit = 0; bit < 8; bit++) {
+                int rising = 3 + (i * 8 + bit) * 2;
+                value = (value << 1) | (edges[rising + 1] - edges[rising] > ONE_THRESHOLD ? 1 : 0);
+            }
+            data[i] = (byte) value;
+        }
+        if (((data[0] + data[1] + data[2] + data[3]) & 0xFF) != (data[4] & 0xFF)) {
+            return false;
+        }
+        float temperature = (((data[2] & 0x7F) << 8) | (data[3] & 0xFF)) / 10F;
+        result[TEMPERATURE] = (data[2] & 0x80) != 0 ? -temperature : temperature;
+        result[HUMIDITY] = (((data[0] & 0xFF) << 8) | (data[1] & 0xFF)) / 10F;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "DHT22 on pin " + getAddress();
+    }
+}
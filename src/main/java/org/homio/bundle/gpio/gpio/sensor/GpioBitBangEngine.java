@@ -0,0 +1,56 @@
+package org.homio.bundle.gpio.gpio.sensor;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Runs bit-banged sensor reads one by one on dedicated max priority thread, so capture loop is never interleaved with other pin
+ * work of service. Priority has effect on Linux only with -XX:ThreadPriorityPolicy=1
+ */
+@Log4j2
+public class GpioBitBangEngine implements Closeable {
+
+    private static final long READ_TIMEOUT = 10;
+
+    private final ExecutorService executor;
+
+    public GpioBitBangEngine(String name) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * @return cached value if sensor was read less than minInterval ago, otherwise read on engine thread and wait for result
+     */
+    public float[] read(GpioBitBangSensor sensor) {
+        if (sensor.isFresh()) {
+            return sensor.getValues();
+        }
+        Future<float[]> future = executor.submit(sensor::read);
+        try {
+            return future.get(READ_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return sensor.getValues();
+        } catch (ExecutionException | TimeoutException ex) {
+            future.cancel(true);
+            log.warn("Unable to read {}: {}", sensor, ex.getMessage());
+            return sensor.getValues();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package org.homio.bundle.gpio.gpio.sensor;
+
+/**
+ * Raw pin access for timing critical protocols. Direction switch and level access must cost nanoseconds, not a provider call
+ */
+public interface GpioBitBangPin {
+
+    void output(boolean level);
+
+    void input();
+
+    boolean read();
+}
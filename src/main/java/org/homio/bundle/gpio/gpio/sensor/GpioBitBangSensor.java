@@ -0,0 +1,85 @@
+package org.homio.bundle.gpio.gpio.sensor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+
+/**
+ * Sensor which is read by capturing edges with System.nanoTime() into preallocated arrays. Failed samples (checksum, timeout) are
+ * retried, last good values are cached and served until minInterval passed
+ */
+@Log4j2
+public abstract class GpioBitBangSensor {
+
+    private static final int RETRIES = 3;
+
+    protected final GpioBitBangPin pin;
+    @Getter
+    private final int address;
+    private final long minIntervalNanos;
+    private final long retryDelayNanos;
+    private final GpioMetrics.Counter errors;
+    // written by engine thread only
+    private volatile float[] values;
+    private volatile long lastRead;
+
+    protected GpioBitBangSensor(int address, GpioBitBangPin pin, long minIntervalMillis, long retryDelayMillis, int valueCount,
+        GpioMetrics metrics) {
+        this.address = address;
+        this.pin = pin;
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+        this.retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(retryDelayMillis);
+        this.values = new float[valueCount];
+        this.errors = metrics.counter(String.format(GpioMetrics.PIN_SENSOR_ERRORS, address));
+        // first read is allowed right away
+        this.lastRead = System.nanoTime() - minIntervalNanos;
+    }
+
+    /**
+     * @return last good values. Zeros if sensor was never read successfully
+     */
+    public float[] getValues() {
+        return values;
+    }
+
+    boolean isFresh() {
+        return System.nanoTime() - lastRead < minIntervalNanos;
+    }
+
+    // engine thread
+    float[] read() {
+        if (isFresh()) {
+            return values;
+        }
+        float[] result = new float[values.length];
+        for (int attempt = 0; attempt < RETRIES; attempt++) {
+            if (attempt > 0) {
+                LockSupport.parkNanos(retryDelayNanos);
+            }
+            lastRead = System.nanoTime();
+            if (sample(result)) {
+                values = result;
+                return result;
+            }
+            errors.increment();
+        }
+        log.debug("{} failed {} attempts, keep last values", this, RETRIES);
+        return values;
+    }
+
+    /**
+     * Single capture and decode
+     *
+     * @return false on timeout or checksum error
+     */
+    protected abstract boolean sample(float[] result);
+
+    protected static void busyWait(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
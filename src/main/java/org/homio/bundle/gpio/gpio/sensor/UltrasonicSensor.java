@@ -0,0 +1,74 @@
+package org.homio.bundle.gpio.gpio.sensor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+
+/**
+ * HC-SR04 ultrasonic ranger. 10us trigger pulse, echo pin stays high for round trip time of sound. Trigger and echo may be same
+ * pin(3 wire modules). Value: median distance of 3 pings in cm
+ */
+public class UltrasonicSensor extends GpioBitBangSensor {
+
+    public static final int DISTANCE = 0;
+
+    private static final long MIN_INTERVAL = 60;
+    private static final long RETRY_DELAY = 60;
+    private static final int PINGS = 3;
+    private static final long TRIGGER_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long ECHO_START_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(30);
+    // ~6.5m, module keeps echo high for 38ms if nothing found
+    private static final long ECHO_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(38);
+    // sound speed 343m/s, there and back
+    private static final double NANOS_PER_CM = 58_309;
+
+    private final GpioBitBangPin echo;
+    private final long[] durations = new long[PINGS];
+
+    public UltrasonicSensor(int address, GpioBitBangPin trigger, GpioBitBangPin echo, GpioMetrics metrics) {
+        super(address, trigger, MIN_INTERVAL, RETRY_DELAY, 1, metrics);
+        this.echo = echo;
+    }
+
+    @Override
+    protected boolean sample(float[] result) {
+        for (int i = 0; i < PINGS; i++) {
+            if ((durations[i] = ping()) < 0) {
+                return false;
+            }
+            // let previous echoes fade
+            busyWait(TimeUnit.MILLISECONDS.toNanos(i == PINGS - 1 ? 0 : 10));
+        }
+        Arrays.sort(durations);
+        result[DISTANCE] = (float) (durations[PINGS / 2] / NANOS_PER_CM);
+        return true;
+    }
+
+    private long ping() {
+        pin.output(false);
+        busyWait(TRIGGER_NANOS / 5);
+        pin.output(true);
+        busyWait(TRIGGER_NANOS);
+        pin.output(false);
+        echo.input();
+        long deadline = System.nanoTime() + ECHO_START_TIMEOUT;
+        while (!echo.read()) {
+            if (System.nanoTime() > deadline) {
+                return -1;
+            }
+        }
+        long start = System.nanoTime();
+        deadline = start + ECHO_TIMEOUT;
+        while (echo.read()) {
+            if (System.nanoTime() > deadline) {
+                return -1;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    @Override
+    public String toString() {
+        return "HC-SR04 on pin " + getAddress();
+    }
+}
@@ -1,5 +1,6 @@
 package org.homio.bundle.gpio.gpio.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.pi4j.io.gpio.digital.PullResistance;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -23,12 +24,19 @@ import org.homio.bundle.api.ui.field.UIFieldType;
 import org.homio.bundle.api.ui.field.color.UIFieldColorMatch;
 import org.homio.bundle.api.ui.field.color.UIFieldColorRef;
 
+/**
+ * Pin table of gpio console. Rows read last state on every refresh, live changed-pins push with server side throttling is served
+ * by GpioPinStream over 'rest/gpio/events' server-sent events
+ */
 @RequiredArgsConstructor
 public class GpioConsolePlugin implements ConsolePluginTable<GpioConsolePlugin.GpioPluginEntity> {
 
     @Getter
     private final EntityContext entityContext;
     private final GPIOService gpioService;
+    // rebuilt only when pin configuration changed. Values are read live from GpioState
+    private volatile List<GpioPluginEntity> snapshot;
+    private volatile int snapshotVersion = -1;
 
     @Override
     public String getParentTab() {
@@ -37,6 +45,15 @@ public class GpioConsolePlugin implements ConsolePluginTable<GpioConsolePlugin.G
 
     @Override
     public Collection<GpioPluginEntity> getValue() {
+        int version = gpioService.getConfigVersion();
+        if (snapshot == null || snapshotVersion != version) {
+            snapshot = buildSnapshot();
+            snapshotVersion = version;
+        }
+        return snapshot;
+    }
+
+    private List<GpioPluginEntity> buildSnapshot() {
         List<GpioPluginEntity> list = new ArrayList<>();
 
         for (GpioState gpioState : gpioService.getState().values()) {
@@ -45,16 +62,16 @@ public class GpioConsolePlugin implements ConsolePluginTable<GpioConsolePlugin.G
             gpioPluginEntity.setAddress(gpioPin.getAddress());
             gpioPluginEntity.setName(gpioPin.getName());
             gpioPluginEntity.setDescription(gpioPin.getDescription());
-            gpioPluginEntity.setSupportedModes(gpioPin.getSupportModes());
+            gpioPluginEntity.setSupportedModes(Collections.unmodifiableSet(gpioPin.getSupportModes()));
             gpioPluginEntity.setMode(gpioState.getPinMode());
             gpioPluginEntity.setColor(gpioPin.getColor());
-            gpioPluginEntity.setValue(gpioState.getLastState());
+            gpioPluginEntity.setGpioState(gpioState);
             gpioPluginEntity.setPullResistance(gpioState.getPull());
             list.add(gpioPluginEntity);
         }
 
         Collections.sort(list);
-        return list;
+        return Collections.unmodifiableList(list);
     }
 
     @Override
@@ -98,12 +115,17 @@ public class GpioConsolePlugin implements ConsolePluginTable<GpioConsolePlugin.G
         @UIField(order = 9, label = "Pull Resistance")
         private PullResistance pullResistance;
 
+        private String color;
+
+        @JsonIgnore
+        private GpioState gpioState;
+
         @UIField(order = 11)
         @UIFieldColorMatch(value = "HIGH", color = "#1F8D2D")
         @UIFieldColorMatch(value = "LOW", color = "#B22020")
-        private State value;
-
-        private String color;
+        public State getValue() {
+            return gpioState.getLastState();
+        }
 
         public String getEntityID() {
             return name;
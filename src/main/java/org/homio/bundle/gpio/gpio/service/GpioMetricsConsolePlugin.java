@@ -0,0 +1,42 @@
+package org.homio.bundle.gpio.gpio.service;
+
+import java.util.Collection;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.homio.bundle.api.EntityContext;
+import org.homio.bundle.api.console.ConsolePluginTable;
+import org.homio.bundle.gpio.gpio.GPIOService;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetric;
+
+@RequiredArgsConstructor
+public class GpioMetricsConsolePlugin implements ConsolePluginTable<GpioMetric> {
+
+    @Getter
+    private final EntityContext entityContext;
+    private final GPIOService gpioService;
+
+    @Override
+    public String getParentTab() {
+        return "GPIO";
+    }
+
+    @Override
+    public Collection<GpioMetric> getValue() {
+        return gpioService.getMetrics().snapshot();
+    }
+
+    @Override
+    public int order() {
+        return 2001;
+    }
+
+    @Override
+    public String getName() {
+        return "gpio-metrics";
+    }
+
+    @Override
+    public Class<GpioMetric> getEntityClass() {
+        return GpioMetric.class;
+    }
+}
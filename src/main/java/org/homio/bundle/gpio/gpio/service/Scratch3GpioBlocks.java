@@ -5,6 +5,9 @@ import org.homio.bundle.gpio.GpioEntity;
 import org.homio.bundle.gpio.GpioEntrypoint;
 import org.homio.bundle.gpio.gpio.GPIOService;
 import org.homio.bundle.gpio.gpio.GpioController.Mode;
+import org.homio.bundle.gpio.gpio.gesture.GpioGesture;
+import org.homio.bundle.gpio.gpio.sensor.Dht22Sensor;
+import org.homio.bundle.gpio.gpio.sensor.UltrasonicSensor;
 import org.springframework.stereotype.Component;
 import org.homio.bundle.api.EntityContext;
 import org.homio.bundle.api.state.DecimalType;
@@ -22,11 +25,16 @@ import org.homio.bundle.api.workspace.scratch.Scratch3ExtensionBlocks;
 public class Scratch3GpioBlocks extends Scratch3ExtensionBlocks {
 
     private final MenuBlock.StaticMenuBlock<OnOffType.OnOffTypeEnum> menuOnOff;
+    private final MenuBlock.StaticMenuBlock<GpioGesture> menuGesture;
+    private final MenuBlock.StaticMenuBlock<Dht22Value> menuDht22Value;
     private final ServerMenuBlock menuDigitalInputPin;
     private final ServerMenuBlock menuDigitalOutputPin;
     private final ServerMenuBlock menuAnalogOutputPin;
     private final ServerMenuBlock menuInputPin;
     private final ServerMenuBlock menuDS18B20;
+    private final ServerMenuBlock menuDht22Pin;
+    private final ServerMenuBlock menuUltrasonicPin;
+    private final ServerMenuBlock menuLedMatrix;
     private final ServerMenuBlock rpiIdMenu;
 
     public Scratch3GpioBlocks(EntityContext entityContext, GpioEntrypoint gpioEntrypoint) {
@@ -37,8 +45,13 @@ public class Scratch3GpioBlocks extends Scratch3ExtensionBlocks {
         this.menuDigitalInputPin = menuServer("dipMenu", "rest/gpio/pin/" + Mode.digitalInput, "-").setDependency(this.rpiIdMenu);
         this.menuDigitalOutputPin = menuServer("dopMenu", "rest/gpio/pin/" + Mode.digitalOutput, "-").setDependency(this.rpiIdMenu);
         this.menuAnalogOutputPin = menuServer("aoMenu", "rest/gpio/pin/" + Mode.analogOutput, "-").setDependency(this.rpiIdMenu);
+        this.menuDht22Pin = menuServer("dhtMenu", "rest/gpio/pin/" + Mode.dht22, "-").setDependency(this.rpiIdMenu);
+        this.menuUltrasonicPin = menuServer("usMenu", "rest/gpio/pin/" + Mode.ultrasonic, "-").setDependency(this.rpiIdMenu);
         this.menuOnOff = menuStatic("onOffMenu", OnOffTypeEnum.class, OnOffTypeEnum.On);
+        this.menuGesture = menuStatic("gestureMenu", GpioGesture.class, GpioGesture.CLICK);
+        this.menuDht22Value = menuStatic("dhtValueMenu", Dht22Value.class, Dht22Value.Temperature);
         this.menuDS18B20 = menuServer("ds18b20Menu", "rest/gpio/device/DS18B20", "DS18B20");
+        this.menuLedMatrix = menuServer("ledMatrixMenu", "rest/gpio/matrix", "-").setDependency(this.rpiIdMenu);
 
         blockCommand(0, "set_gpio", "Set [ONOFF] to pin [PIN] of [RPI]", this::writeDigitalPinCommand, block -> {
             block.addArgument("RPI", this.rpiIdMenu);
@@ -72,6 +85,53 @@ public class Scratch3GpioBlocks extends Scratch3ExtensionBlocks {
             block.addArgument("RPI", this.rpiIdMenu);
             block.addArgument("DS18B20", menuDS18B20);
         });
+
+        blockCommand(5, "pulse_gpio", "Pulse [ONOFF] on pin [PIN] for [DURATION] ms of [RPI]", this::pulseDigitalPinCommand, block -> {
+            block.addArgument("RPI", this.rpiIdMenu);
+            block.addArgument("PIN", menuDigitalOutputPin);
+            block.addArgument("ONOFF", menuOnOff);
+            block.addArgument("DURATION", 1000);
+        });
+
+        blockCommand(6, "set_gpio_after", "Set [ONOFF] to pin [PIN] after [DELAY] ms of [RPI]", this::writeDigitalPinAfterCommand, block -> {
+            block.addArgument("RPI", this.rpiIdMenu);
+            block.addArgument("PIN", menuDigitalOutputPin);
+            block.addArgument("ONOFF", menuOnOff);
+            block.addArgument("DELAY", 1000);
+        });
+
+        blockHat(7, "when_gpio_gesture", "when [GESTURE] on [PIN] of [RPI]", this::whenGpioGestureHat, block -> {
+            block.addArgument("RPI", this.rpiIdMenu);
+            block.addArgument("PIN", menuDigitalInputPin);
+            block.addArgument("GESTURE", menuGesture);
+        });
+
+        blockReporter(8, "dht22_value", "DHT22 [VALUE] of pin [PIN] of [RPI]", this::getDht22ValueReporter, block -> {
+            block.addArgument("RPI", this.rpiIdMenu);
+            block.addArgument("PIN", menuDht22Pin);
+            block.addArgument("VALUE", menuDht22Value);
+        });
+
+        blockReporter(9, "distance", "Distance(cm) of pin [PIN] of [RPI]", this::getDistanceReporter, block -> {
+            block.addArgument("RPI", this.rpiIdMenu);
+            block.addArgument("PIN", menuUltrasonicPin);
+        });
+
+        blockCommand(10, "set_matrix_row", "Set row [ROW] of matrix [MATRIX] to [BITS] of [RPI]", this::setMatrixRowCommand, block -> {
+            block.addArgument("RPI", this.rpiIdMenu);
+            block.addArgument("MATRIX", menuLedMatrix);
+            block.addArgument("ROW", 0);
+            block.addArgument("BITS", 255);
+        });
+
+        blockCommand(11, "set_matrix_pixel", "Set pixel [ROW]:[COL] of matrix [MATRIX] [ONOFF] of [RPI]", this::setMatrixPixelCommand,
+            block -> {
+                block.addArgument("RPI", this.rpiIdMenu);
+                block.addArgument("MATRIX", menuLedMatrix);
+                block.addArgument("ROW", 0);
+                block.addArgument("COL", 0);
+                block.addArgument("ONOFF", menuOnOff);
+            });
     }
 
     @Override
@@ -91,6 +151,20 @@ public class Scratch3GpioBlocks extends Scratch3ExtensionBlocks {
         return new DecimalType(entity.getService().getDS18B20Value(ds18b20Id));
     }
 
+    private State getDht22ValueReporter(WorkspaceBlock workspaceBlock) {
+        int address = getAddress(workspaceBlock, menuDht22Pin);
+        GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+        float[] values = entity.getService().readSensor(address);
+        Dht22Value value = workspaceBlock.getMenuValue("VALUE", this.menuDht22Value);
+        return new DecimalType(values[value == Dht22Value.Humidity ? Dht22Sensor.HUMIDITY : Dht22Sensor.TEMPERATURE]);
+    }
+
+    private State getDistanceReporter(WorkspaceBlock workspaceBlock) {
+        int address = getAddress(workspaceBlock, menuUltrasonicPin);
+        GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+        return new DecimalType(entity.getService().readSensor(address)[UltrasonicSensor.DISTANCE]);
+    }
+
     private void whenGpioInStateHat(WorkspaceBlock workspaceBlock) {
         int address = getAddress(workspaceBlock, menuDigitalInputPin);
         workspaceBlock.handleNext(next -> {
@@ -99,12 +173,22 @@ public class Scratch3GpioBlocks extends Scratch3ExtensionBlocks {
             GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
             GPIOService gpioService = entity.getService();
 
-            gpioService.addGpioListener(workspaceBlock.getId(), address, state -> {
-                if (state == expectedState) {
-                    lock.signalAll();
-                }
-            });
-            workspaceBlock.onRelease(() -> gpioService.removeGpioListener(address, workspaceBlock.getId()));
+            gpioService.addGpioWaiter(workspaceBlock.getId(), address, expectedState, lock::signalAll);
+            workspaceBlock.onRelease(() -> gpioService.removeGpioWaiter(address, expectedState, workspaceBlock.getId()));
+            workspaceBlock.subscribeToLock(lock, next::handle);
+        });
+    }
+
+    private void whenGpioGestureHat(WorkspaceBlock workspaceBlock) {
+        int address = getAddress(workspaceBlock, menuDigitalInputPin);
+        workspaceBlock.handleNext(next -> {
+            GpioGesture gesture = workspaceBlock.getMenuValue("GESTURE", this.menuGesture);
+            BroadcastLock lock = workspaceBlock.getBroadcastLockManager().getOrCreateLock(workspaceBlock);
+            GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+            GPIOService gpioService = entity.getService();
+
+            gpioService.addGestureWaiter(workspaceBlock.getId(), address, gesture, lock::signalAll);
+            workspaceBlock.onRelease(() -> gpioService.removeGestureWaiter(address, gesture, workspaceBlock.getId()));
             workspaceBlock.subscribeToLock(lock, next::handle);
         });
     }
@@ -122,7 +206,38 @@ public class Scratch3GpioBlocks extends Scratch3ExtensionBlocks {
         entity.getService().setValue(address, value);
     }
 
+    private void pulseDigitalPinCommand(WorkspaceBlock workspaceBlock) {
+        OnOffType value = OnOffType.of(workspaceBlock.getMenuValue("ONOFF", this.menuOnOff) == OnOffTypeEnum.On);
+        int address = getAddress(workspaceBlock, menuDigitalOutputPin);
+        GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+        entity.getService().pulse(address, value, workspaceBlock.getInputInteger("DURATION"));
+    }
+
+    private void writeDigitalPinAfterCommand(WorkspaceBlock workspaceBlock) {
+        OnOffType value = OnOffType.of(workspaceBlock.getMenuValue("ONOFF", this.menuOnOff) == OnOffTypeEnum.On);
+        int address = getAddress(workspaceBlock, menuDigitalOutputPin);
+        GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+        entity.getService().setValueAfter(address, value, workspaceBlock.getInputInteger("DELAY"));
+    }
+
+    private void setMatrixRowCommand(WorkspaceBlock workspaceBlock) {
+        GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+        entity.getService().setMatrixRow(workspaceBlock.getMenuValue("MATRIX", menuLedMatrix), workspaceBlock.getInputInteger("ROW"),
+            workspaceBlock.getInputInteger("BITS"));
+    }
+
+    private void setMatrixPixelCommand(WorkspaceBlock workspaceBlock) {
+        boolean on = workspaceBlock.getMenuValue("ONOFF", this.menuOnOff) == OnOffTypeEnum.On;
+        GpioEntity entity = workspaceBlock.getMenuValueEntityRequired("RPI", this.rpiIdMenu);
+        entity.getService().setMatrixPixel(workspaceBlock.getMenuValue("MATRIX", menuLedMatrix), workspaceBlock.getInputInteger("ROW"),
+            workspaceBlock.getInputInteger("COL"), on);
+    }
+
     private int getAddress(WorkspaceBlock workspaceBlock, ServerMenuBlock menuPin) {
         return Integer.parseInt(workspaceBlock.getMenuValue("PIN", menuPin));
     }
+
+    public enum Dht22Value {
+        Temperature, Humidity
+    }
 }
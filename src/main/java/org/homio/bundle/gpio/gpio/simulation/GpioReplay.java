@@ -0,0 +1,91 @@
+package org.homio.bundle.gpio.gpio.simulation;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.homio.bundle.gpio.gpio.record.GpioEventRecorder;
+
+/**
+ * Events of recorded log split by pin. Times are relative to first event of log, so pins replayed from common origin keep
+ * their relative order
+ */
+final class GpioReplay {
+
+    private long[] times = new long[16];
+    private double[] values = new double[16];
+    private int size;
+
+    /**
+     * @param path - log directory or one segment
+     */
+    static Map<Integer, GpioReplay> load(String path) throws IOException {
+        Map<Integer, GpioReplay> pins = new HashMap<>();
+        long[] origin = {-1};
+        GpioEventRecorder.read(Paths.get(path), (epochNanos, address, analog, value) -> {
+            if (origin[0] < 0) {
+                origin[0] = epochNanos;
+            }
+            pins.computeIfAbsent(address, a -> new GpioReplay()).add(epochNanos - origin[0], value);
+        });
+        if (pins.isEmpty()) {
+            throw new IllegalArgumentException("Recording " + path + " has no events");
+        }
+        return pins;
+    }
+
+    /**
+     * @param spec - 'path[:speed]', speed 2 replays twice faster than recorded
+     * @return {path, speed}
+     */
+    static String[] split(String spec) {
+        int index = spec.lastIndexOf(':');
+        if (index > 0 && spec.substring(index + 1).trim().matches("[0-9]*\\.?[0-9]+")) {
+            if (Double.parseDouble(spec.substring(index + 1).trim()) <= 0) {
+                throw new IllegalArgumentException("Replay speed must be positive: " + spec);
+            }
+            return new String[]{spec.substring(0, index).trim(), spec.substring(index + 1).trim()};
+        }
+        return new String[]{spec.trim(), "1"};
+    }
+
+    GpioSignal signal(double speed) {
+        return new Replay(this, speed);
+    }
+
+    private void add(long time, double value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size++] = value;
+    }
+
+    /**
+     * Plays recorded events once, first event is due at replay origin
+     */
+    private static final class Replay extends GpioSignal {
+
+        private final GpioReplay replay;
+        private final double speed;
+        private int index = -1;
+
+        Replay(GpioReplay replay, double speed) {
+            this.replay = replay;
+            this.speed = speed;
+        }
+
+        @Override
+        public long next() {
+            index++;
+            if (index == replay.size) {
+                return END;
+            }
+            value = replay.values[index];
+            long delay = index == 0 ? replay.times[0] : replay.times[index] - replay.times[index - 1];
+            return (long) (delay / speed);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.homio.bundle.gpio.gpio.simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scripted input signal. Simulator emits value() at deadline and asks next() for delay of following sample. Signals are stateful
+ * and used by simulator thread only
+ */
+public abstract class GpioSignal {
+
+    // returned by next() when signal has no more samples
+    public static final long END = -1;
+
+    protected double value;
+
+    public double value() {
+        return value;
+    }
+
+    /**
+     * Move to next sample
+     *
+     * @return nanos between current and next sample or END
+     */
+    public abstract long next();
+
+    /**
+     * @param spec - 'square:hz[:low:high]', 'burst:maxEdges:hz:pauseMs', 'random:hz:min:max' or 'trace:path'
+     * @param seed - random signals with same seed produce same sequence
+     */
+    public static GpioSignal parse(String spec, long seed) throws IOException {
+        String[] parts = spec.trim().split(":");
+        switch (parts[0].trim().toLowerCase()) {
+            case "square":
+                return new Square(hz(parts[1]), parts.length > 3 ? Double.parseDouble(parts[2]) : 0,
+                    parts.length > 3 ? Double.parseDouble(parts[3]) : 1);
+            case "burst":
+                return new Burst(Integer.parseInt(parts[1]), hz(parts[2]), Long.parseLong(parts[3]), new SplittableRandom(seed));
+            case "random":
+                return new Noise(hz(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), new SplittableRandom(seed));
+            case "trace":
+                return Trace.load(spec.substring(spec.indexOf(':') + 1).trim());
+            default:
+                throw new IllegalArgumentException("Unknown signal: " + parts[0]);
+        }
+    }
+
+    private static double hz(String value) {
+        double hz = Double.parseDouble(value);
+        if (hz <= 0 || hz > 1_000_000) {
+            throw new IllegalArgumentException("Frequency must be in (0..1MHz]: " + value);
+        }
+        return hz;
+    }
+
+    private static final class Square extends GpioSignal {
+
+        private final long halfPeriod;
+        private final double low;
+        private final double high;
+
+        Square(double hz, double low, double high) {
+            this.halfPeriod = (long) (TimeUnit.SECONDS.toNanos(1) / hz / 2);
+            this.low = low;
+            this.high = high;
+            this.value = low;
+        }
+
+        @Override
+        public long next() {
+            value = value == low ? high : low;
+            return halfPeriod;
+        }
+    }
+
+    /**
+     * Bursts of random even number of edges up to maxEdges at given rate, separated by random pauses with mean pauseMs
+     */
+    private static final class Burst extends GpioSignal {
+
+        private final int maxEdges;
+        private final long edgeInterval;
+        private final long meanPause;
+        private final SplittableRandom random;
+        private int remaining;
+
+        Burst(int maxEdges, double hz, long pauseMs, SplittableRandom random) {
+            this.maxEdges = Math.max(2, maxEdges);
+            this.edgeInterval = (long) (TimeUnit.SECONDS.toNanos(1) / hz);
+            this.meanPause = TimeUnit.MILLISECONDS.toNanos(pauseMs);
+            this.random = random;
+        }
+
+        @Override
+        public long next() {
+            if (remaining == 0) {
+                remaining = 2 * (1 + random.nextInt(maxEdges / 2));
+                // exponential pause, bounded to 10 means
+                return edgeInterval + (long) (Math.min(10, -Math.log(1 - random.nextDouble())) * meanPause);
+            }
+            remaining--;
+            value = value == 0 ? 1 : 0;
+            return edgeInterval;
+        }
+    }
+
+    private static final class Noise extends GpioSignal {
+
+        private final long interval;
+        private final double min;
+        private final double max;
+        private final SplittableRandom random;
+
+        Noise(double hz, double min, double max, SplittableRandom random) {
+            this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / hz);
+            this.min = min;
+            this.max = max;
+            this.random = random;
+        }
+
+        @Override
+        public long next() {
+            value = min + Math.floor(random.nextDouble() * (max - min + 1));
+            return interval;
+        }
+    }
+
+    /**
+     * Text trace, line per sample: '<delay micros since previous sample> <value>'. Replayed in loop
+     */
+    private static final class Trace extends GpioSignal {
+
+        private final long[] delays;
+        private final double[] values;
+        private int index = -1;
+
+        private Trace(long[] delays, double[] values) {
+            this.delays = delays;
+            this.values = values;
+        }
+
+        static Trace load(String path) throws IOException {
+            List<String> lines = Files.readAllLines(Paths.get(path));
+            lines.removeIf(line -> line.isBlank() || line.startsWith("#"));
+            if (lines.isEmpty()) {
+                throw new IllegalArgumentException("Trace " + path + " is empty");
+            }
+            long[] delays = new long[lines.size()];
+            double[] values = new double[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                String[] parts = lines.get(i).trim().split("\\s+");
+                // zero delays would spin simulator in loop
+                delays[i] = Math.max(1000, TimeUnit.MICROSECONDS.toNanos(Long.parseLong(parts[0])));
+                values[i] = Double.parseDouble(parts[1]);
+            }
+            return new Trace(delays, values);
+        }
+
+        @Override
+        public long next() {
+            index = index + 1 == values.length ? 0 : index + 1;
+            value = values[index];
+            return delays[index];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.homio.bundle.gpio.gpio.simulation;
+
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.analog.AnalogInput;
+import com.pi4j.io.gpio.analog.AnalogInputConfig;
+import com.pi4j.plugin.mock.provider.gpio.analog.MockAnalogInput;
+import com.pi4j.plugin.mock.provider.gpio.analog.MockAnalogInputProviderImpl;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Mock analog inputs fed by simulator. Signal value is rounded to integer
+ */
+public class GpioSimAnalogInputProvider extends MockAnalogInputProviderImpl {
+
+    public static final String ID = "sim-analog-input";
+
+    private final GpioSimulator simulator;
+
+    public GpioSimAnalogInputProvider(GpioSimulator simulator) {
+        this.id = ID;
+        this.name = "Simulated Analog Input (GPIO) Provider";
+        this.simulator = simulator;
+    }
+
+    @Override
+    public AnalogInput create(AnalogInputConfig config) {
+        SimAnalogInput input = new SimAnalogInput(config);
+        simulator.attach(config.address(), input);
+        return input;
+    }
+
+    private class SimAnalogInput extends MockAnalogInput implements DoubleConsumer {
+
+        SimAnalogInput(AnalogInputConfig config) {
+            super(GpioSimAnalogInputProvider.this, config);
+        }
+
+        @Override
+        public void accept(double value) {
+            mockValue((int) Math.round(value));
+        }
+
+        @Override
+        public AnalogInput shutdown(Context context) {
+            simulator.detach(config.address(), this);
+            return super.shutdown(context);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.homio.bundle.gpio.gpio.simulation;
+
+import com.pi4j.context.Context;
+import com.pi4j.exception.ShutdownException;
+import com.pi4j.io.gpio.digital.DigitalInput;
+import com.pi4j.io.gpio.digital.DigitalInputConfig;
+import com.pi4j.io.gpio.digital.DigitalState;
+import com.pi4j.plugin.mock.provider.gpio.digital.MockDigitalInput;
+import com.pi4j.plugin.mock.provider.gpio.digital.MockDigitalInputProviderImpl;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Mock digital inputs fed by simulator. Any non zero signal value is HIGH
+ */
+public class GpioSimDigitalInputProvider extends MockDigitalInputProviderImpl {
+
+    public static final String ID = "sim-digital-input";
+
+    private final GpioSimulator simulator;
+
+    public GpioSimDigitalInputProvider(GpioSimulator simulator) {
+        this.id = ID;
+        this.name = "Simulated Digital Input (GPIO) Provider";
+        this.simulator = simulator;
+    }
+
+    @Override
+    public DigitalInput create(DigitalInputConfig config) {
+        SimDigitalInput input = new SimDigitalInput(config);
+        simulator.attach(config.address(), input);
+        return input;
+    }
+
+    private class SimDigitalInput extends MockDigitalInput implements DoubleConsumer {
+
+        SimDigitalInput(DigitalInputConfig config) {
+            super(GpioSimDigitalInputProvider.this, config);
+        }
+
+        @Override
+        public void accept(double value) {
+            mockState(value == 0 ? DigitalState.LOW : DigitalState.HIGH);
+        }
+
+        @Override
+        public DigitalInput shutdown(Context context) throws ShutdownException {
+            simulator.detach(config.address(), this);
+            return super.shutdown(context);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.homio.bundle.gpio.gpio.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.homio.bundle.gpio.gpio.metrics.GpioMetrics;
+
+/**
+ * Drives simulated input pins from scripted signals on one max priority thread. Samples are emitted at their deadlines, which are
+ * computed from previous deadline, so rate doesn't drift; thread spins when next sample is closer than SPIN_NANOS, so high rates
+ * cost one core. Values equal to previous one are not emitted
+ */
+@Log4j2
+public class GpioSimulator implements Closeable {
+
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // pins are provisioned one by one after simulator is created, signals start together after this delay
+    private static final long START_DELAY = TimeUnit.SECONDS.toNanos(1);
+    private static final int ANY_ADDRESS = -1;
+    private static final String REPLAY = "replay:";
+    // simulator fell behind more than this(GC, suspend) - skip missed samples instead of replaying them at once
+    private static final long MAX_LAG = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String name;
+    private final Map<Integer, String> signals = new HashMap<>();
+    private final GpioMetrics.Counter events;
+    private final long origin = System.nanoTime() + START_DELAY;
+    private final Map<String, Map<Integer, GpioReplay>> recordings = new HashMap<>();
+    private volatile Channel[] channels = new Channel[0];
+    private Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * @param signals - 'address=signal' separated by ';' or new line, see GpioSignal.parse(). Signal 'replay:path[:speed]' plays
+     * events of recorded log once, '*=replay:...' replays all recorded pins. Invalid lines are logged and skipped
+     */
+    public GpioSimulator(String name, String signals, GpioMetrics metrics) {
+        this.name = name;
+        this.events = metrics.counter(GpioMetrics.SIMULATED_EVENTS);
+        for (String line : StringUtils.split(StringUtils.defaultString(signals), ";\n")) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            try {
+                String[] parts = line.split("=", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("expected 'address=signal'");
+                }
+                int address = "*".equals(parts[0].trim()) ? ANY_ADDRESS : Integer.parseInt(parts[0].trim());
+                // validate now, signal itself is created per attached pin
+                createSignal(parts[1].trim(), address);
+                this.signals.put(address, parts[1].trim());
+            } catch (Exception ex) {
+                log.warn("Skip gpio signal '{}': {}", line, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Start feeding pin. Pin without configured signal keeps its initial value
+     *
+     * @return false if no signal configured for address
+     */
+    public synchronized boolean attach(int address, DoubleConsumer sink) {
+        String spec = signals.getOrDefault(address, signals.get(ANY_ADDRESS));
+        if (spec == null || closed) {
+            return false;
+        }
+        GpioSignal signal;
+        try {
+            signal = createSignal(spec, address);
+        } catch (Exception ex) {
+            log.error("Unable to create gpio signal '{}' for pin {}: {}", spec, address, ex.getMessage());
+            return false;
+        }
+        long delay = signal == null ? GpioSignal.END : signal.next();
+        if (delay == GpioSignal.END) {
+            return false;
+        }
+        List<Channel> list = new ArrayList<>(Arrays.asList(channels));
+        list.removeIf(channel -> channel.address == address);
+        list.add(new Channel(address, signal, sink, Math.max(origin, System.nanoTime()) + delay));
+        channels = list.toArray(new Channel[0]);
+        if (worker == null) {
+            worker = new Thread(this::run, "gpio-sim-" + name);
+            worker.setDaemon(true);
+            worker.setPriority(Thread.MAX_PRIORITY);
+            worker.start();
+        }
+        return true;
+    }
+
+    /**
+     * Stop feeding pin if it's still fed to same sink
+     */
+    public synchronized void detach(int address, DoubleConsumer sink) {
+        List<Channel> list = new ArrayList<>(Arrays.asList(channels));
+        if (list.removeIf(channel -> channel.address == address && channel.sink == sink)) {
+            channels = list.toArray(new Channel[0]);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        channels = new Channel[0];
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * @return null if replayed recording has no events of pin
+     */
+    private GpioSignal createSignal(String spec, int address) throws IOException {
+        if (spec.toLowerCase().startsWith(REPLAY)) {
+            String[] replay = GpioReplay.split(spec.substring(REPLAY.length()));
+            Map<Integer, GpioReplay> recording = recordings.get(replay[0]);
+            if (recording == null) {
+                recording = GpioReplay.load(replay[0]);
+                recordings.put(replay[0], recording);
+            }
+            GpioReplay pin = recording.get(address);
+            return pin == null ? null : pin.signal(Double.parseDouble(replay[1]));
+        }
+        if (address == ANY_ADDRESS) {
+            throw new IllegalArgumentException("'*' allowed only for replay");
+        }
+        return GpioSignal.parse(spec, address);
+    }
+
+    private void run() {
+        while (!closed) {
+            long now = System.nanoTime();
+            long nextDeadline = now + IDLE_NANOS;
+            for (Channel channel : channels) {
+                if (now - channel.deadline > MAX_LAG) {
+                    channel.deadline = now;
+                }
+                while (!channel.done && channel.deadline - now <= 0) {
+                    channel.emit();
+                    long delay = channel.signal.next();
+                    if (delay == GpioSignal.END) {
+                        channel.done = true;
+                    } else {
+                        channel.deadline += delay;
+                    }
+                }
+                if (channel.done) {
+                    continue;
+                }
+                if (channel.deadline - nextDeadline < 0) {
+                    nextDeadline = channel.deadline;
+                }
+            }
+            long wait = nextDeadline - System.nanoTime();
+            if (wait > SPIN_NANOS) {
+                LockSupport.parkNanos(wait - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // simulator thread only
+    private final class Channel {
+
+        private final int address;
+        private final GpioSignal signal;
+        private final DoubleConsumer sink;
+        private long deadline;
+        private double last = Double.NaN;
+        private boolean failed;
+        private boolean done;
+
+        Channel(int address, GpioSignal signal, DoubleConsumer sink, long deadline) {
+            this.address = address;
+            this.signal = signal;
+            this.sink = sink;
+            this.deadline = deadline;
+        }
+
+        void emit() {
+            double value = signal.value();
+            if (value == last) {
+                return;
+            }
+            last = value;
+            try {
+                sink.accept(value);
+                events.increment();
+            } catch (Exception ex) {
+                if (!failed) {
+                    failed = true;
+                    log.warn("Simulated pin {} listener failed: {}", address, ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.homio.bundle.gpio.gpio.stream;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.homio.bundle.api.state.State;
+
+@Getter
+@RequiredArgsConstructor
+public class GpioPinChange {
+
+    private final int address;
+    private final State state;
+    private final long timestamp;
+    // assigned when change delivered by GpioPinStream
+    @Setter(AccessLevel.PACKAGE)
+    private long seq;
+
+    @Override
+    public String toString() {
+        return "GpioPinChange{seq=" + seq + ", address=" + address + ", state=" + state + "}";
+    }
+}
@@ -0,0 +1,111 @@
+package org.homio.bundle.gpio.gpio.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import lombok.extern.log4j.Log4j2;
+import org.homio.bundle.api.state.State;
+
+/**
+ * Throttled stream of pin changes. Changes are coalesced per pin(only latest state kept) and delivered to subscribers as one batch
+ * not often than once per throttle interval. Delivered changes get sequential numbers and last HISTORY_SIZE of them are kept to
+ * replay for reconnected subscribers.
+ */
+@Log4j2
+public class GpioPinStream {
+
+    private static final int HISTORY_SIZE = 1024;
+
+    private final Map<Integer, GpioPinChange> pending = new ConcurrentHashMap<>();
+    private final List<Consumer<List<GpioPinChange>>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final GpioPinChange[] history = new GpioPinChange[HISTORY_SIZE];
+    private final ScheduledExecutorService executor;
+    private final long throttleMillis;
+    // guarded by history
+    private long sequence;
+
+    public GpioPinStream(ScheduledExecutorService executor, long throttleMillis) {
+        this.executor = executor;
+        this.throttleMillis = throttleMillis;
+    }
+
+    public void publish(int address, State state) {
+        pending.put(address, new GpioPinChange(address, state, System.currentTimeMillis()));
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, throttleMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return runnable to unsubscribe
+     */
+    public Runnable subscribe(Consumer<List<GpioPinChange>> subscriber) {
+        return subscribe(subscriber, null);
+    }
+
+    /**
+     * Subscribe and atomically replay changes which are still in history and have seq greater than lastSeq
+     *
+     * @param lastSeq - last seq received by subscriber or null to receive only new changes
+     * @return runnable to unsubscribe
+     */
+    public Runnable subscribe(Consumer<List<GpioPinChange>> subscriber, Long lastSeq) {
+        synchronized (history) {
+            if (lastSeq != null) {
+                List<GpioPinChange> replay = new ArrayList<>();
+                // seq restarted(service recreated), replay all we have
+                long from = lastSeq > sequence ? 0 : lastSeq;
+                for (long seq = Math.max(from, sequence - HISTORY_SIZE) + 1; seq <= sequence; seq++) {
+                    replay.add(history[(int) (seq % HISTORY_SIZE)]);
+                }
+                if (!replay.isEmpty()) {
+                    subscriber.accept(Collections.unmodifiableList(replay));
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public long getSequence() {
+        synchronized (history) {
+            return sequence;
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<GpioPinChange> changes = new ArrayList<>(pending.size());
+        for (Integer address : pending.keySet()) {
+            GpioPinChange change = pending.remove(address);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<GpioPinChange> readOnlyChanges = Collections.unmodifiableList(changes);
+        synchronized (history) {
+            for (GpioPinChange change : changes) {
+                change.setSeq(++sequence);
+                history[(int) (sequence % HISTORY_SIZE)] = change;
+            }
+            for (Consumer<List<GpioPinChange>> subscriber : subscribers) {
+                try {
+                    subscriber.accept(readOnlyChanges);
+                } catch (Exception ex) {
+                    log.warn("Error while deliver gpio changes: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.homio.bundle.gpio.gpio.stream;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent-events subscriber of GpioPinStream with bounded buffer. If client doesn't keep up and buffer overflows, buffered changes
+ * are collapsed to latest change per pin. Sending happens on sender pool of service to not block gpio stream on slow clients.
+ */
+@Log4j2
+public class GpioSseSubscriber implements Consumer<List<GpioPinChange>> {
+
+    private final ArrayDeque<GpioPinChange> buffer = new ArrayDeque<>();
+    private final ExecutorService sender;
+    private final SseEmitter emitter;
+    private final String entityID;
+    private final Set<Integer> pins;
+    private final int capacity;
+    private Runnable unsubscribe;
+    // guarded by this
+    private boolean sending;
+    private boolean closed;
+
+    public GpioSseSubscriber(ExecutorService sender, SseEmitter emitter, String entityID, Set<Integer> pins, int capacity) {
+        this.sender = sender;
+        this.emitter = emitter;
+        this.entityID = entityID;
+        this.pins = pins;
+        this.capacity = capacity;
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(ex -> close());
+    }
+
+    public void setUnsubscribe(Runnable unsubscribe) {
+        boolean closed;
+        synchronized (this) {
+            this.unsubscribe = unsubscribe;
+            closed = this.closed;
+        }
+        // client gone before subscription completed
+        if (closed) {
+            unsubscribe.run();
+        }
+    }
+
+    @Override
+    public synchronized void accept(List<GpioPinChange> changes) {
+        if (closed) {
+            return;
+        }
+        for (GpioPinChange change : changes) {
+            if (pins.isEmpty() || pins.contains(change.getAddress())) {
+                buffer.add(change);
+            }
+        }
+        if (buffer.size() > capacity) {
+            coalesce();
+        }
+        if (!sending && !buffer.isEmpty()) {
+            sending = true;
+            sender.execute(this::drain);
+        }
+    }
+
+    private void coalesce() {
+        Map<Integer, GpioPinChange> latest = new LinkedHashMap<>();
+        for (GpioPinChange change : buffer) {
+            latest.remove(change.getAddress());
+            latest.put(change.getAddress(), change);
+        }
+        log.debug("Gpio sse client of <{}> is slow. Coalesce {} changes to {}", entityID, buffer.size(), latest.size());
+        buffer.clear();
+        buffer.addAll(latest.values());
+        while (buffer.size() > capacity) {
+            buffer.poll();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            GpioPinChange change;
+            synchronized (this) {
+                change = closed ? null : buffer.poll();
+                if (change == null) {
+                    sending = false;
+                    return;
+                }
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                                       .id(String.valueOf(change.getSeq()))
+                                       .name("pin")
+                                       .data(Map.of(
+                                           "entityID", entityID,
+                                           "address", change.getAddress(),
+                                           "state", change.getState() == null ? "" : change.getState().stringValue(),
+                                           "timestamp", change.getTimestamp(),
+                                           "seq", change.getSeq())));
+            } catch (Exception ex) {
+                log.debug("Gpio sse client of <{}> disconnected: {}", entityID, ex.getMessage());
+                emitter.completeWithError(ex);
+                close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finish response of client, used when service is destroyed
+     */
+    public void complete() {
+        close();
+        emitter.complete();
+    }
+
+    private void close() {
+        Runnable unsubscribe;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.clear();
+            unsubscribe = this.unsubscribe;
+        }
+        if (unsubscribe != null) {
+            unsubscribe.run();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.homio.bundle.gpio.gpio.timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import lombok.Getter;
+import org.homio.bundle.api.state.OnOffType;
+import org.homio.bundle.api.state.State;
+
+/**
+ * Sequence of pin writes driven by timer wheel. Each step is scheduled from planned deadline of previous one, so long blink
+ * patterns don't drift
+ */
+public class GpioTimedCommand {
+
+    @Getter
+    private final int address;
+    private final State[] states;
+    // delays[i] - millis between step i-1 and step i. delays[0] used between rounds
+    private final long[] delays;
+    private final int rounds;
+    private final GpioTimerWheel wheel;
+    // receives owning command, so writes queued before cancel may be dropped by it
+    private final BiConsumer<GpioTimedCommand, State> writer;
+    // called when all rounds are done, not called on cancel
+    private final Consumer<GpioTimedCommand> onDone;
+
+    private volatile GpioTimerWheel.Timeout timeout;
+    private volatile boolean cancelled;
+    private long deadline;
+    private int step;
+    private int round;
+
+    /**
+     * @param rounds - number of pattern repeats, 0 - until cancelled
+     */
+    private GpioTimedCommand(int address, State[] states, long[] delays, int rounds, GpioTimerWheel wheel,
+        BiConsumer<GpioTimedCommand, State> writer, Consumer<GpioTimedCommand> onDone) {
+        this.address = address;
+        this.states = states;
+        this.delays = delays;
+        this.rounds = rounds;
+        this.wheel = wheel;
+        this.writer = writer;
+        this.onDone = onDone;
+    }
+
+    public static GpioTimedCommand setAfter(int address, State state, long delayMillis, GpioTimerWheel wheel,
+        BiConsumer<GpioTimedCommand, State> writer, Consumer<GpioTimedCommand> onDone) {
+        return new GpioTimedCommand(address, new State[]{state}, new long[]{delayMillis}, 1, wheel, writer, onDone);
+    }
+
+    public static GpioTimedCommand pulse(int address, OnOffType state, long durationMillis, GpioTimerWheel wheel,
+        BiConsumer<GpioTimedCommand, State> writer, Consumer<GpioTimedCommand> onDone) {
+        return new GpioTimedCommand(address, new State[]{state, OnOffType.of(!state.boolValue())}, new long[]{0, durationMillis},
+            1, wheel, writer, onDone);
+    }
+
+    public static GpioTimedCommand blink(int address, long onMillis, long offMillis, int count, GpioTimerWheel wheel,
+        BiConsumer<GpioTimedCommand, State> writer, Consumer<GpioTimedCommand> onDone) {
+        return new GpioTimedCommand(address, new State[]{OnOffType.ON, OnOffType.OFF}, new long[]{offMillis, onMillis}, count,
+            wheel, writer, onDone);
+    }
+
+    /**
+     * @param initialDelayMillis - delay before first step
+     */
+    public GpioTimedCommand start(long initialDelayMillis) {
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+        scheduleNext();
+        return this;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        GpioTimerWheel.Timeout current = timeout;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void scheduleNext() {
+        if (!cancelled) {
+            timeout = wheel.schedule(this::fire, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fire() {
+        if (cancelled) {
+            return;
+        }
+        writer.accept(this, states[step]);
+        step++;
+        if (step == states.length) {
+            step = 0;
+            round++;
+            if (rounds > 0 && round >= rounds) {
+                onDone.accept(this);
+                return;
+            }
+        }
+        deadline += TimeUnit.MILLISECONDS.toNanos(delays[step]);
+        scheduleNext();
+    }
+}
@@ -0,0 +1,246 @@
+package org.homio.bundle.gpio.gpio.timer;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Hashed timer wheel. Any number of pending timeouts costs one thread; schedule/cancel are O(1) and lock free, precision is one tick.
+ * Tasks run on wheel thread and must be short, hand off real work to executor
+ */
+@Log4j2
+public class GpioTimerWheel implements Closeable {
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private long tick;
+    private volatile boolean closed;
+
+    /**
+     * @param wheelSize - rounded up to power of two
+     */
+    public GpioTimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(newTimeout(task), delay, unit);
+    }
+
+    /**
+     * @return not scheduled timeout which may be armed many times by schedule(Timeout...) without allocation
+     */
+    public Timeout newTimeout(Runnable task) {
+        return new Timeout(task);
+    }
+
+    /**
+     * Arm timeout. Already armed timeout is moved to new deadline
+     */
+    public Timeout schedule(Timeout timeout, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Timer wheel is closed");
+        }
+        timeout.deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay));
+        timeout.arm();
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return number of scheduled timeouts which are not expired yet. Cancelled timeouts counted until wheel passes their bucket
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = deadline - System.nanoTime()) > 0 && !closed) {
+                LockSupport.parkNanos(sleep);
+            }
+            transferAdded();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        // bound work per tick in case of schedule storm
+        for (int i = 0; i < 100000; i++) {
+            Timeout timeout = added.poll();
+            if (timeout == null) {
+                return;
+            }
+            long stamp = timeout.stamp.get();
+            if (Timeout.phase(stamp) == Timeout.CANCELLED) {
+                pending.decrementAndGet();
+                continue;
+            }
+            if (timeout.bucket != null) {
+                // re-armed before previous deadline
+                timeout.bucket.remove(timeout);
+            }
+            // deadline is written before stamp, so it belongs to this or newer arming. Newer arming has own queue entry
+            timeout.bucketStamp = stamp;
+            long calculated = (timeout.deadline - startTime) / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Stamp holds arming generation and phase, so fire of previous arming can't consume re-armed timeout
+     */
+    public static final class Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final int PHASE_MASK = 3;
+
+        private final Runnable task;
+        // generation << 2 | phase
+        private final AtomicLong stamp = new AtomicLong(EXPIRED);
+        private volatile long deadline;
+        // wheel thread only
+        private long bucketStamp;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * @return false if timeout already expired or cancelled
+         */
+        public boolean cancel() {
+            while (true) {
+                long current = stamp.get();
+                if (phase(current) != INIT) {
+                    return false;
+                }
+                if (stamp.compareAndSet(current, current | CANCELLED)) {
+                    return true;
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return phase(stamp.get()) == CANCELLED;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        private void arm() {
+            while (true) {
+                long current = stamp.get();
+                long next = ((current >>> 2) + 1) << 2 | INIT;
+                if (stamp.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Only arming which placed timeout into bucket may fire it
+         */
+        private boolean expire() {
+            return phase(bucketStamp) == INIT && stamp.compareAndSet(bucketStamp, bucketStamp | EXPIRED);
+        }
+
+        private static int phase(long stamp) {
+            return (int) (stamp & PHASE_MASK);
+        }
+    }
+
+    // accessed only from wheel thread
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    // re-armed timeout has newer stamp and waits in queue to be moved
+                    if (timeout.expire()) {
+                        try {
+                            timeout.task.run();
+                        } catch (Throwable ex) {
+                            log.error("Timer task failed", ex);
+                        }
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = timeout.prev = null;
+            timeout.bucket = null;
+            pending.decrementAndGet();
+        }
+    }
+}